@@ -0,0 +1,94 @@
+package com.clinica.availability.service;
+
+import com.clinica.availability.model.AvailabilityRule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara a verificação de regras com parse "HH:mm" a cada pedido (implementação anterior)
+ * com o caminho atual: mapa de bits do dia montado a partir das regras compiladas
+ * (falta no cache) e consulta ao mapa já montado (acerto no cache)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleEvaluationBenchmark {
+
+    @Param({"5", "50", "500"})
+    private int rulesPerResource;
+
+    private List<AvailabilityRule> rules;
+    private ResourceSchedule schedule;
+    private ResourceDayBitmap dayBitmap;
+    private LocalDateTime checkStart;
+    private LocalDateTime checkEnd;
+    private int fromMinute;
+    private int toMinute;
+
+    @Setup
+    public void setUp() {
+        rules = new ArrayList<>();
+        for (int i = 0; i < rulesPerResource; i++) {
+            AvailabilityRule rule = new AvailabilityRule();
+            rule.setId((long) i);
+            rule.setResourceId(1L);
+            rule.setDayOfWeek(DayOfWeek.of(i % 7 + 1).toString());
+            int startHour = 6 + i % 8;
+            rule.setStartTime(String.format("%02d:00", startHour));
+            rule.setEndTime(String.format("%02d:30", startHour + 2));
+            rules.add(rule);
+        }
+        schedule = ResourceSchedule.build(CompiledRuleSet.compile(rules), List.of(), List.of());
+
+        checkStart = LocalDateTime.parse("2024-01-02T10:15:00"); // Tuesday
+        checkEnd = LocalDateTime.parse("2024-01-02T10:45:00");
+        dayBitmap = ResourceDayBitmap.build(schedule, checkStart.toLocalDate());
+        fromMinute = ResourceDayBitmap.floorMinute(checkStart.toLocalDate().atStartOfDay(), checkStart);
+        toMinute = ResourceDayBitmap.ceilMinute(checkStart.toLocalDate().atStartOfDay(), checkEnd);
+    }
+
+    @Benchmark
+    public boolean parsePerRequest() {
+        String dayOfWeekStr = checkStart.getDayOfWeek().toString();
+
+        return rules.stream()
+                .filter(rule -> rule.getDayOfWeek().equals(dayOfWeekStr))
+                .anyMatch(rule -> {
+                    LocalTime ruleStartTime = LocalTime.parse(rule.getStartTime(), DateTimeFormatter.ofPattern("HH:mm"));
+                    LocalTime ruleEndTime = LocalTime.parse(rule.getEndTime(), DateTimeFormatter.ofPattern("HH:mm"));
+                    return checkStart.toLocalTime().isAfter(ruleStartTime)
+                            && checkEnd.toLocalTime().isBefore(ruleEndTime);
+                });
+    }
+
+    @Benchmark
+    public boolean dayBitmapBuild() {
+        ResourceDayBitmap bitmap = ResourceDayBitmap.build(schedule, checkStart.toLocalDate());
+        return MinuteBitmap.allSet(bitmap.getRuleBits(), fromMinute, toMinute);
+    }
+
+    @Benchmark
+    public boolean dayBitmapCached() {
+        return MinuteBitmap.allSet(dayBitmap.getRuleBits(), fromMinute, toMinute);
+    }
+}
@@ -0,0 +1,90 @@
+package com.clinica.availability.timeslot.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara as estratégias de gravação em massa de time_slot em um H2 em memória.
+ * Rodar com: mvn -Pjmh test-compile exec:exec -Djmh.args="SlotBulkLoad"
+ * A reescrita de lotes do driver (rewriteBatchedStatements) só existe no MySQL;
+ * no H2 a estratégia BATCH mede o lote JDBC puro.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SlotBulkLoadBenchmark {
+
+    @Param({"BATCH", "MULTI_ROW", "CSV"})
+    private String strategy;
+
+    @Param({"1000", "20000"})
+    private int rows;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SlotBulkLoader loader;
+    private SlotBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:bulkload;MODE=MySQL", "sa", "", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(
+            "CREATE TABLE time_slot (" +
+            "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+            "resource_type VARCHAR(50) NOT NULL, resource_id BIGINT NOT NULL, " +
+            "start_time TIMESTAMP NOT NULL, end_time TIMESTAMP NOT NULL, " +
+            "status VARCHAR(20) NOT NULL, tenant_id BIGINT, " +
+            "batch_row INT, batch_position INT, blocking_reason VARCHAR(255), " +
+            "booking_id BIGINT, service_type_id BIGINT)");
+        jdbcTemplate.execute("CREATE INDEX idx_time_slot_resource ON time_slot (resource_type, resource_id, start_time)");
+
+        loader = SlotBulkLoader.create(SlotBulkLoader.Strategy.valueOf(strategy), jdbcTemplate);
+
+        // Slots de 30 minutos; um a cada dez em batch e um a cada vinte bloqueado
+        buffer = new SlotBuffer("DOCTOR", 1L, 1L, rows);
+        long start = SlotBuffer.toEpochMinute(LocalDateTime.of(2024, 1, 1, 8, 0));
+        for (int i = 0; i < rows; i++) {
+            long slotStart = start + i * 30L;
+            buffer.accept(slotStart, slotStart + 30, i % 10 == 0 ? 1 + i % 3 : 0, i % 10 == 0 ? 1 + i % 5 : 0);
+            if (i % 20 == 0) {
+                buffer.block(i, "Férias, \"recesso\"");
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void truncate() {
+        jdbcTemplate.execute("TRUNCATE TABLE time_slot");
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbcTemplate.execute("DROP TABLE time_slot");
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public void load() {
+        loader.load(buffer);
+    }
+}
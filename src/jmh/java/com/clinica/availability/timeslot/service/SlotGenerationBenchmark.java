@@ -0,0 +1,117 @@
+package com.clinica.availability.timeslot.service;
+
+import com.clinica.availability.model.AvailabilityRule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede a geração de slots (regras e configurações de batch) sem banco de dados.
+ * Rodar com: mvn -Pjmh test-compile exec:exec -Djmh.args="SlotGeneration -prof gc"
+ * O profiler gc reporta a taxa de alocação (gc.alloc.rate.norm = bytes por operação).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SlotGenerationBenchmark {
+
+    private static final LocalDate START_DATE = LocalDate.of(2024, 1, 1);
+
+    @Param({"1", "10", "50"})
+    private int rules;
+
+    @Param({"1", "20"})
+    private int maxSlots;
+
+    @Param({"30", "365"})
+    private int horizonDays;
+
+    @Param({"1", "5"})
+    private int batchConfigs;
+
+    private SlotGenerationService service;
+    private List<AvailabilityRule> ruleList;
+    private List<Map<String, Object>> batchConfigList;
+    private LocalDate endDate;
+    private SlotBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        service = new SlotGenerationService();
+        endDate = START_DATE.plusDays(horizonDays - 1);
+        buffer = new SlotBuffer("DOCTOR", 1L, 1L, 1000);
+
+        // Regras semanais de 30 minutos espalhadas pelos dias da semana
+        ruleList = new ArrayList<>();
+        for (int i = 0; i < rules; i++) {
+            AvailabilityRule rule = new AvailabilityRule();
+            rule.setId((long) i);
+            rule.setPatternId(1L);
+            rule.setRuleType(AvailabilityRule.RuleType.WEEKLY);
+            rule.setWeekday(i % 7);
+            rule.setStartTime(LocalTime.of(7 + i % 4, 0));
+            rule.setEndTime(LocalTime.of(12 + i % 6, 0));
+            rule.setSlotDuration(30);
+            rule.setMaxSlots(maxSlots);
+            ruleList.add(rule);
+        }
+
+        // Configurações de batch no formato lido de slot_batch_config
+        batchConfigList = new ArrayList<>();
+        for (int i = 0; i < batchConfigs; i++) {
+            Map<String, Object> config = new HashMap<>();
+            config.put("weekday", (i % 5) + 1);
+            config.put("total_slots", 40);
+            config.put("parallel_capacity", 4);
+            config.put("avg_duration", 20);
+            config.put("start_time", Time.valueOf(LocalTime.of(8, 0)));
+            config.put("end_time", Time.valueOf(LocalTime.of(12, 0)));
+            batchConfigList.add(config);
+        }
+    }
+
+    @Benchmark
+    public void generateSlotsFromRules(Blackhole blackhole) {
+        service.generateSlotsFromRules(ruleList, START_DATE, endDate, drainingSink(blackhole));
+    }
+
+    @Benchmark
+    public void generateBatchSlots(Blackhole blackhole) {
+        service.generateBatchSlots(batchConfigList, START_DATE, endDate, drainingSink(blackhole));
+    }
+
+    /**
+     * Enche o buffer de lote como na gravação real, descartando cada lote cheio no lugar do JDBC
+     */
+    private SlotSink drainingSink(Blackhole blackhole) {
+        buffer.clear();
+        return (startMinute, endMinute, batchRow, batchPosition) -> {
+            buffer.accept(startMinute, endMinute, batchRow, batchPosition);
+            if (buffer.isFull()) {
+                blackhole.consume(buffer.getStartMinute(buffer.size() - 1));
+                buffer.clear();
+            }
+        };
+    }
+}
@@ -0,0 +1,37 @@
+package com.clinica.availability.config;
+
+import com.clinica.availability.event.AvailabilityChangeEvent;
+import com.clinica.availability.event.AvailabilityChangePublisher;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class RedisEventConfig {
+
+    /**
+     * Recebe alterações publicadas por outros nós e as repassa como eventos Spring locais
+     */
+    @Bean
+    public RedisMessageListenerContainer availabilityChangeListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            RedisTemplate<String, Object> redisTemplate,
+            AvailabilityChangePublisher changePublisher,
+            ApplicationEventPublisher eventPublisher) {
+
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> {
+            Object payload = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            // Eventos do próprio nó já foram entregues localmente
+            if (payload instanceof AvailabilityChangeEvent event && changePublisher.isRemote(event)) {
+                eventPublisher.publishEvent(event);
+            }
+        }, new ChannelTopic(AvailabilityChangePublisher.CHANNEL));
+        return container;
+    }
+}
@@ -0,0 +1,12 @@
+package com.clinica.availability.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita os jobs @Scheduled (horizonte de slots e reconciliação de sumários)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -2,14 +2,22 @@ package com.clinica.availability.controller;
 
 import com.clinica.availability.dto.AvailabilityCheckRequestDTO;
 import com.clinica.availability.dto.AvailabilityResponseDTO;
+import com.clinica.availability.dto.FreeIntervalDTO;
 import com.clinica.availability.service.AvailabilityService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @RestController
 @RequestMapping("/availability")
 public class AvailabilityController {
@@ -17,9 +25,30 @@ public class AvailabilityController {
     @Autowired
     private AvailabilityService availabilityService;
 
+    // Maior período aceito em /free: a varredura percorre o período dia a dia
+    @Value("${availability.free.max-days:366}")
+    private long maxFreeDays;
+
     @PostMapping("/check")
     public ResponseEntity<AvailabilityResponseDTO> checkAvailability(@RequestBody AvailabilityCheckRequestDTO request) {
         AvailabilityResponseDTO response = availabilityService.checkAvailability(request);
         return ResponseEntity.ok(response);
     }
+
+    @PostMapping("/check/batch")
+    public ResponseEntity<List<AvailabilityResponseDTO>> checkAvailabilityBatch(@RequestBody List<AvailabilityCheckRequestDTO> requests) {
+        List<AvailabilityResponseDTO> responses = availabilityService.checkAvailabilityBatch(requests);
+        return ResponseEntity.ok(responses);
+    }
+
+    @GetMapping("/free")
+    public ResponseEntity<List<FreeIntervalDTO>> getFreeIntervals(
+            @RequestParam Long resourceId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        if (!start.isBefore(end) || end.isAfter(start.plusDays(maxFreeDays))) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(availabilityService.findFreeIntervals(resourceId, start, end));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+package com.clinica.availability.controller;
+
+import com.clinica.availability.dto.FreeIntervalDTO;
+import com.clinica.availability.timeslot.dto.BatchBookingRequestDTO;
+import com.clinica.availability.timeslot.dto.BulkGenerationReportDTO;
+import com.clinica.availability.timeslot.dto.CustomSlotRequestDTO;
+import com.clinica.availability.timeslot.dto.GenerationJobStatusDTO;
+import com.clinica.availability.timeslot.dto.JointAvailabilityRequestDTO;
+import com.clinica.availability.timeslot.service.BulkSlotGenerationService;
+import com.clinica.availability.timeslot.service.SlotGenerationJobService;
+import com.clinica.availability.timeslot.service.SlotGenerationService;
+import com.clinica.availability.timeslot.service.SlotService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/slots")
+public class SlotController {
+
+    @Autowired
+    private SlotService slotService;
+
+    @Autowired
+    private BulkSlotGenerationService bulkSlotGenerationService;
+
+    @Autowired
+    private SlotGenerationService slotGenerationService;
+
+    @Autowired
+    private SlotGenerationJobService slotGenerationJobService;
+
+    @PostMapping("/joint-search")
+    public ResponseEntity<List<FreeIntervalDTO>> findJointAvailability(@RequestBody JointAvailabilityRequestDTO request) {
+        try {
+            return ResponseEntity.ok(slotService.findJointAvailability(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/{id}/holds")
+    public ResponseEntity<String> holdSlot(
+            @PathVariable Long id, @RequestParam(required = false) Long ttlSeconds) {
+        try {
+            String token = slotService.holdSlot(id, ttlSeconds);
+            return token != null ? ResponseEntity.ok(token) : ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/{id}/holds/{token}/confirm")
+    public ResponseEntity<Void> confirmHold(
+            @PathVariable Long id, @PathVariable String token,
+            @RequestParam Long bookingId,
+            @RequestParam String modifiedBy,
+            @RequestParam(required = false) String reason) {
+        return slotService.confirmHold(id, token, bookingId, modifiedBy, reason)
+            ? ResponseEntity.ok().build()
+            : ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    @DeleteMapping("/{id}/holds/{token}")
+    public ResponseEntity<Void> releaseHold(@PathVariable Long id, @PathVariable String token) {
+        return slotService.releaseHold(id, token)
+            ? ResponseEntity.noContent().build()
+            : ResponseEntity.notFound().build();
+    }
+
+    @DeleteMapping("/{id}/bookings/{bookingId}")
+    public ResponseEntity<Void> cancelBooking(
+            @PathVariable Long id, @PathVariable Long bookingId,
+            @RequestParam String modifiedBy,
+            @RequestParam(required = false) String reason) {
+        try {
+            return slotService.cancelBooking(id, bookingId, modifiedBy, reason)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build(); // Vínculo sem vaga a devolver
+        }
+    }
+
+    @PostMapping("/bookings/batch")
+    public ResponseEntity<Void> bookSlots(@RequestBody BatchBookingRequestDTO request) {
+        try {
+            slotService.bookSlots(
+                request.getSlotIds(), request.getBookingId(), request.getModifiedBy(), request.getReason());
+            return ResponseEntity.ok().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build(); // Algum slot já estava ocupado
+        }
+    }
+
+    @PostMapping("/generate/bulk")
+    public ResponseEntity<BulkGenerationReportDTO> generateBulk(
+            @RequestParam(required = false) Long tenantId,
+            @RequestParam(required = false) String resourceType,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        try {
+            return ResponseEntity.ok(bulkSlotGenerationService.generateForTenant(tenantId, resourceType, startDate, endDate));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/generate/custom")
+    public ResponseEntity<Integer> generateCustom(@RequestBody CustomSlotRequestDTO request) {
+        try {
+            return ResponseEntity.ok(slotGenerationService.generateCustomSlots(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/jobs")
+    public ResponseEntity<GenerationJobStatusDTO> startGenerationJob(
+            @RequestParam String resourceType,
+            @RequestParam Long resourceId,
+            @RequestParam(required = false) Long tenantId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "7") int chunkDays) {
+        try {
+            Long jobId = slotGenerationJobService.startJob(
+                resourceType, resourceId, tenantId, startDate, endDate, chunkDays);
+            return ResponseEntity.accepted().body(slotGenerationJobService.getJobStatus(jobId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<GenerationJobStatusDTO> getGenerationJob(@PathVariable Long id) {
+        GenerationJobStatusDTO status = slotGenerationJobService.getJobStatus(id);
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/jobs/{id}/resume")
+    public ResponseEntity<GenerationJobStatusDTO> resumeGenerationJob(@PathVariable Long id) {
+        if (!slotGenerationJobService.resumeJob(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.accepted().body(slotGenerationJobService.getJobStatus(id));
+    }
+}
@@ -0,0 +1,33 @@
+package com.clinica.availability.dto;
+
+import java.time.LocalDateTime;
+
+public class FreeIntervalDTO {
+
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+
+    public FreeIntervalDTO() {
+    }
+
+    public FreeIntervalDTO(LocalDateTime startTime, LocalDateTime endTime) {
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+}
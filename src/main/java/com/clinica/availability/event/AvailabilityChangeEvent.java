@@ -0,0 +1,66 @@
+package com.clinica.availability.event;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Alteração de disponibilidade publicada localmente e replicada entre nós via Redis.
+ * Carrega as chaves precisas de invalidação: recurso (null = todos) e intervalo de datas
+ * (limites null = em aberto, como nas regras semanais).
+ */
+public class AvailabilityChangeEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum EntityType { RULE, EXCEPTION, AVAILABILITY, PATTERN, SLOT }
+
+    private final EntityType entityType;
+    private final Long entityId;
+    private final Long resourceId;
+    private final LocalDate fromDate;
+    private final LocalDate toDate;
+    private final String originNode;
+
+    public AvailabilityChangeEvent(EntityType entityType, Long entityId, Long resourceId,
+                                   LocalDate fromDate, LocalDate toDate, String originNode) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.resourceId = resourceId;
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+        this.originNode = originNode;
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public Long getResourceId() {
+        return resourceId;
+    }
+
+    public LocalDate getFromDate() {
+        return fromDate;
+    }
+
+    public LocalDate getToDate() {
+        return toDate;
+    }
+
+    public String getOriginNode() {
+        return originNode;
+    }
+
+    /**
+     * Verifica se a alteração afeta o recurso na data informada
+     */
+    public boolean affects(Long resourceId, LocalDate date) {
+        return (this.resourceId == null || this.resourceId.equals(resourceId))
+                && (fromDate == null || !date.isBefore(fromDate))
+                && (toDate == null || !date.isAfter(toDate));
+    }
+}
@@ -0,0 +1,131 @@
+package com.clinica.availability.event;
+
+import com.clinica.availability.event.AvailabilityChangeEvent.EntityType;
+import com.clinica.availability.model.AvailabilityException;
+import com.clinica.availability.model.AvailabilityPattern;
+import com.clinica.availability.model.AvailabilityRule;
+import com.clinica.availability.model.ResourceAvailability;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Publica alterações de disponibilidade como eventos Spring e no canal Redis,
+ * para que caches locais e de outros nós invalidem apenas as chaves afetadas
+ */
+@Component
+public class AvailabilityChangePublisher {
+
+    public static final String CHANNEL = "availability:changes";
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Indica se o evento foi originado em outro nó
+     */
+    public boolean isRemote(AvailabilityChangeEvent event) {
+        return !nodeId.equals(event.getOriginNode());
+    }
+
+    public void ruleChanged(AvailabilityRule rule) {
+        publish(ruleEvent(rule));
+    }
+
+    public void exceptionChanged(AvailabilityException exception) {
+        publish(exceptionEvent(exception));
+    }
+
+    public void availabilityChanged(ResourceAvailability availability) {
+        publish(availabilityEvent(availability));
+    }
+
+    public void patternChanged(AvailabilityPattern pattern) {
+        publish(patternEvent(pattern));
+    }
+
+    /*
+     * Eventos montados sem publicar: numa atualização, o evento do estado anterior deve ser
+     * montado antes do save, porque merge() copia os novos valores para a entidade carregada
+     */
+
+    public AvailabilityChangeEvent ruleEvent(AvailabilityRule rule) {
+        // Regras semanais valem para todas as datas
+        return new AvailabilityChangeEvent(EntityType.RULE, rule.getId(), rule.getResourceId(), null, null, nodeId);
+    }
+
+    public AvailabilityChangeEvent exceptionEvent(AvailabilityException exception) {
+        return new AvailabilityChangeEvent(EntityType.EXCEPTION, exception.getId(), exception.getResourceId(),
+                toDate(exception.getStartTime()), toDate(exception.getEndTime()), nodeId);
+    }
+
+    public AvailabilityChangeEvent availabilityEvent(ResourceAvailability availability) {
+        return new AvailabilityChangeEvent(EntityType.AVAILABILITY, availability.getId(),
+                availability.getResourceId(), toDate(availability.getStartTime()),
+                toDate(availability.getEndTime()), nodeId);
+    }
+
+    public AvailabilityChangeEvent patternEvent(AvailabilityPattern pattern) {
+        // Padrões não pertencem a um recurso: afetam todos
+        return new AvailabilityChangeEvent(EntityType.PATTERN, pattern.getId(), null, null, null, nodeId);
+    }
+
+    public void slotChanged(Long slotId, Long resourceId, LocalDateTime startTime) {
+        LocalDate date = toDate(startTime);
+        publish(new AvailabilityChangeEvent(EntityType.SLOT, slotId, resourceId, date, date, nodeId));
+    }
+
+    public void slotsGenerated(Long resourceId, LocalDate startDate, LocalDate endDate) {
+        publish(new AvailabilityChangeEvent(EntityType.SLOT, null, resourceId, startDate, endDate, nodeId));
+    }
+
+    public void slotsChanged(Long resourceId, LocalDate startDate, LocalDate endDate) {
+        publish(new AvailabilityChangeEvent(EntityType.SLOT, null, resourceId, startDate, endDate, nodeId));
+    }
+
+    /**
+     * Entrega o evento aos ouvintes locais e o replica para os demais nós.
+     * Dentro de uma transação a entrega espera o commit, para que ninguém recarregue dados antigos.
+     */
+    public void publish(AvailabilityChangeEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver(event);
+                }
+            });
+        } else {
+            deliver(event);
+        }
+    }
+
+    private void deliver(AvailabilityChangeEvent event) {
+        eventPublisher.publishEvent(event);
+        try {
+            redisTemplate.convertAndSend(CHANNEL, event);
+        } catch (RuntimeException e) {
+            // Redis indisponível: os ouvintes locais já foram notificados
+        }
+    }
+
+    private static LocalDate toDate(LocalDateTime dateTime) {
+        return dateTime == null ? null : dateTime.toLocalDate();
+    }
+}
@@ -26,6 +26,13 @@ public class TimeSlot {
     @Column(name = "status")
     private String status;
 
+    // Modo capacidade: vagas da janela (null = uma linha por atendimento) e vagas reservadas
+    @Column(name = "capacity")
+    private Integer capacity;
+
+    @Column(name = "booked_count", nullable = false)
+    private int bookedCount;
+
     public Long getId() {
         return id;
     }
@@ -73,4 +80,20 @@ public class TimeSlot {
     public void setStatus(String status) {
         this.status = status;
     }
+
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getBookedCount() {
+        return bookedCount;
+    }
+
+    public void setBookedCount(int bookedCount) {
+        this.bookedCount = bookedCount;
+    }
 }
\ No newline at end of file
@@ -7,6 +7,20 @@ import org.springframework.stereotype.Repository;
 @Repository
 public class OccupancySummaryRepository {
 
+    /**
+     * Contagens de um sumário sobre time_slot. Slots com capacity (modo capacidade) contam
+     * como capacity unidades, das quais booked_count estão reservadas; slots sem capacity
+     * contam como uma unidade cada, como antes.
+     */
+    public static final String SLOT_COUNTS =
+        "    SUM(COALESCE(capacity, 1)) as total_slots, " +
+        "    SUM(CASE WHEN status = 'AVAILABLE' THEN COALESCE(capacity - booked_count, 1) ELSE 0 END) as available_slots, " +
+        "    SUM(CASE WHEN capacity IS NULL THEN CASE WHEN status = 'BOOKED' THEN 1 ELSE 0 END " +
+        "             WHEN status = 'COMPLETED' THEN 0 ELSE booked_count END) as booked_slots, " +
+        "    SUM(CASE WHEN status = 'BLOCKED' THEN COALESCE(capacity - booked_count, 1) ELSE 0 END) as blocked_slots, " +
+        "    SUM(CASE WHEN status = 'COMPLETED' THEN CASE WHEN capacity IS NULL THEN 1 ELSE booked_count END " +
+        "             ELSE 0 END) as completed_slots, ";
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -33,7 +47,7 @@ public class OccupancySummaryRepository {
         // Lógica para recalcular o sumário (pode envolver queries complexas)
         // Exemplo simplificado:
         jdbcTemplate.update(
-            "UPDATE historical_occupancy_summary SET total_slots = (SELECT COUNT(*) FROM time_slot " +
+            "UPDATE historical_occupancy_summary SET total_slots = (SELECT SUM(COALESCE(capacity, 1)) FROM time_slot " +
             "WHERE resource_type = ? AND resource_id = ? AND tenant_id = ? " +
             "AND YEAR(start_time) = ? AND MONTH(start_time) = ?) " +
             "WHERE resource_type = ? AND resource_id = ? AND tenant_id = ? " +
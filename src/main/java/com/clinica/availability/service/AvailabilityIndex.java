@@ -0,0 +1,325 @@
+package com.clinica.availability.service;
+
+import com.clinica.availability.model.AvailabilityException;
+import com.clinica.availability.model.AvailabilityPattern;
+import com.clinica.availability.model.AvailabilityRule;
+import com.clinica.availability.model.ResourceAvailability;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice em memória de regras, exceções e disponibilidades por recurso.
+ * As leituras usam visões imutáveis por recurso; as escritas (CRUD) reconstroem
+ * apenas a visão do recurso afetado.
+ * Também mantém, sob demanda e com limite LRU, mapas de bits por recurso e dia;
+ * cada escrita invalida somente os dias afetados.
+ */
+@Component
+public class AvailabilityIndex {
+
+    private final Map<Long, ResourceEntries> entriesByResource = new HashMap<>();
+    private final Map<Long, Long> ruleOwners = new HashMap<>();
+    private final Map<Long, Long> exceptionOwners = new HashMap<>();
+    private final Map<Long, Long> availabilityOwners = new HashMap<>();
+    private final Map<Long, CompiledPattern> patternsById = new LinkedHashMap<>();
+
+    private final Map<Long, CompiledRuleSet> compiledRules = new HashMap<>();
+    private final Map<Long, ResourceSchedule> schedules = new ConcurrentHashMap<>();
+    private volatile List<CompiledPattern> patterns = List.of();
+    private volatile boolean loaded;
+
+    private final LruCache<ResourceDayKey, ResourceDayBitmap> dayBitmaps = new LruCache<>(10_000);
+    // Incrementado ao fim de cada escrita, depois de reindexar e invalidar: quem leu o valor
+    // anterior montou o mapa de bits com a visão antiga e não pode guardá-lo
+    private volatile long mutationCount;
+    private volatile int bitmapMaxWindowDays = 31;
+
+    @Value("${availability.bitmap.max-entries:10000}")
+    public void setBitmapMaxEntries(int maxEntries) {
+        dayBitmaps.setMaxEntries(maxEntries);
+    }
+
+    @Value("${availability.bitmap.max-window-days:31}")
+    public void setBitmapMaxWindowDays(int maxWindowDays) {
+        bitmapMaxWindowDays = maxWindowDays;
+    }
+
+    /**
+     * Maior janela (em dias) verificada com os mapas de bits em cache; acima disso a
+     * verificação percorre a visão do recurso sem passar pelo cache
+     */
+    int getBitmapMaxWindowDays() {
+        return bitmapMaxWindowDays;
+    }
+
+    /**
+     * Reconstrói todo o índice a partir do banco de dados
+     */
+    public synchronized void rebuild(
+            Collection<AvailabilityRule> rules,
+            Collection<AvailabilityException> exceptions,
+            Collection<ResourceAvailability> availabilities,
+            Collection<AvailabilityPattern> allPatterns) {
+
+        entriesByResource.clear();
+        ruleOwners.clear();
+        exceptionOwners.clear();
+        availabilityOwners.clear();
+        patternsById.clear();
+
+        rules.forEach(this::addRule);
+        exceptions.forEach(this::addException);
+        availabilities.forEach(this::addAvailability);
+        allPatterns.forEach(this::addPattern);
+
+        compiledRules.clear();
+        schedules.clear();
+        entriesByResource.keySet().forEach(this::reindex);
+        patterns = List.copyOf(patternsById.values());
+
+        dayBitmaps.clear();
+        mutationCount++;
+        loaded = true;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Visão indexada de um recurso (vazia se o recurso não possui dados)
+     */
+    ResourceSchedule getSchedule(Long resourceId) {
+        return schedules.getOrDefault(resourceId, ResourceSchedule.EMPTY);
+    }
+
+    /**
+     * Padrões de recorrência com expressão CRON válida, já compilados
+     */
+    List<CompiledPattern> getPatterns() {
+        return patterns;
+    }
+
+    /**
+     * Mapa de bits do recurso no dia, montado sob demanda a partir da visão indexada
+     */
+    ResourceDayBitmap getDayBitmap(Long resourceId, LocalDate date) {
+        ResourceDayKey key = new ResourceDayKey(resourceId, date.toEpochDay());
+        ResourceDayBitmap cached = dayBitmaps.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long observedMutations = mutationCount;
+        ResourceDayBitmap bitmap = ResourceDayBitmap.build(getSchedule(resourceId), date);
+        cacheIfUnchanged(observedMutations, () -> dayBitmaps.put(key, bitmap));
+        return bitmap;
+    }
+
+    public synchronized void putRule(AvailabilityRule rule) {
+        AvailabilityRule previous = removeRuleEntry(rule.getId());
+        addRule(rule);
+        if (previous != null) {
+            invalidateRules(previous.getResourceId(), previous.getDayOfWeek());
+        }
+        invalidateRules(rule.getResourceId(), rule.getDayOfWeek());
+        mutationCount++;
+    }
+
+    public synchronized void removeRule(Long ruleId) {
+        AvailabilityRule previous = removeRuleEntry(ruleId);
+        if (previous != null) {
+            invalidateRules(previous.getResourceId(), previous.getDayOfWeek());
+        }
+        mutationCount++;
+    }
+
+    public synchronized void putException(AvailabilityException exception) {
+        AvailabilityException previous = removeExceptionEntry(exception.getId());
+        addException(exception);
+        if (previous != null) {
+            invalidatePeriod(previous.getResourceId(), previous.getStartTime(), previous.getEndTime());
+        }
+        invalidatePeriod(exception.getResourceId(), exception.getStartTime(), exception.getEndTime());
+        mutationCount++;
+    }
+
+    public synchronized void removeException(Long exceptionId) {
+        AvailabilityException previous = removeExceptionEntry(exceptionId);
+        if (previous != null) {
+            invalidatePeriod(previous.getResourceId(), previous.getStartTime(), previous.getEndTime());
+        }
+        mutationCount++;
+    }
+
+    public synchronized void putAvailability(ResourceAvailability availability) {
+        ResourceAvailability previous = removeAvailabilityEntry(availability.getId());
+        addAvailability(availability);
+        if (previous != null) {
+            invalidatePeriod(previous.getResourceId(), previous.getStartTime(), previous.getEndTime());
+        }
+        invalidatePeriod(availability.getResourceId(), availability.getStartTime(), availability.getEndTime());
+        mutationCount++;
+    }
+
+    public synchronized void removeAvailability(Long availabilityId) {
+        ResourceAvailability previous = removeAvailabilityEntry(availabilityId);
+        if (previous != null) {
+            invalidatePeriod(previous.getResourceId(), previous.getStartTime(), previous.getEndTime());
+        }
+        mutationCount++;
+    }
+
+    public synchronized void putPattern(AvailabilityPattern pattern) {
+        patternsById.remove(pattern.getId());
+        addPattern(pattern);
+        patterns = List.copyOf(patternsById.values());
+    }
+
+    public synchronized void removePattern(Long patternId) {
+        if (patternsById.remove(patternId) != null) {
+            patterns = List.copyOf(patternsById.values());
+        }
+    }
+
+    private void addPattern(AvailabilityPattern pattern) {
+        CompiledPattern compiled = CompiledPattern.compile(pattern);
+        if (compiled != null) {
+            patternsById.put(pattern.getId(), compiled);
+        }
+    }
+
+    private void addRule(AvailabilityRule rule) {
+        if (rule.getResourceId() == null) {
+            return;
+        }
+        entries(rule.getResourceId()).rules.put(rule.getId(), rule);
+        ruleOwners.put(rule.getId(), rule.getResourceId());
+    }
+
+    private void addException(AvailabilityException exception) {
+        if (exception.getResourceId() == null) {
+            return;
+        }
+        entries(exception.getResourceId()).exceptions.put(exception.getId(), exception);
+        exceptionOwners.put(exception.getId(), exception.getResourceId());
+    }
+
+    private void addAvailability(ResourceAvailability availability) {
+        if (availability.getResourceId() == null) {
+            return;
+        }
+        entries(availability.getResourceId()).availabilities.put(availability.getId(), availability);
+        availabilityOwners.put(availability.getId(), availability.getResourceId());
+    }
+
+    private AvailabilityRule removeRuleEntry(Long ruleId) {
+        Long owner = ruleOwners.remove(ruleId);
+        return owner == null ? null : entries(owner).rules.remove(ruleId);
+    }
+
+    private AvailabilityException removeExceptionEntry(Long exceptionId) {
+        Long owner = exceptionOwners.remove(exceptionId);
+        return owner == null ? null : entries(owner).exceptions.remove(exceptionId);
+    }
+
+    private ResourceAvailability removeAvailabilityEntry(Long availabilityId) {
+        Long owner = availabilityOwners.remove(availabilityId);
+        return owner == null ? null : entries(owner).availabilities.remove(availabilityId);
+    }
+
+    private ResourceEntries entries(Long resourceId) {
+        return entriesByResource.computeIfAbsent(resourceId, id -> new ResourceEntries());
+    }
+
+    /**
+     * Descarta as regras compiladas de um recurso, reconstrói sua visão e
+     * invalida os mapas de bits dos dias da semana afetados pela regra
+     */
+    private void invalidateRules(Long resourceId, String dayOfWeek) {
+        if (resourceId == null) {
+            return;
+        }
+        compiledRules.remove(resourceId);
+        reindex(resourceId);
+
+        int weekdayMask = CompiledRule.parseWeekdayMask(dayOfWeek);
+        dayBitmaps.removeIf(key -> key.resourceId().equals(resourceId)
+                && (weekdayMask & CompiledRule.weekdayBit(LocalDate.ofEpochDay(key.epochDay()).getDayOfWeek())) != 0);
+    }
+
+    /**
+     * Reconstrói a visão do recurso e invalida os mapas de bits dos dias cobertos pelo período
+     */
+    private void invalidatePeriod(Long resourceId, LocalDateTime start, LocalDateTime end) {
+        if (resourceId == null) {
+            return;
+        }
+        reindex(resourceId);
+
+        if (start == null || end == null) {
+            return;
+        }
+        long firstDay = start.toLocalDate().toEpochDay();
+        long lastDay = end.toLocalDate().toEpochDay();
+        dayBitmaps.removeIf(key -> key.resourceId().equals(resourceId)
+                && key.epochDay() >= firstDay && key.epochDay() <= lastDay);
+    }
+
+    /**
+     * Guarda um mapa de bits apenas se nenhuma escrita ocorreu durante sua montagem
+     */
+    private synchronized void cacheIfUnchanged(long observedMutations, Runnable store) {
+        if (observedMutations == mutationCount) {
+            store.run();
+        }
+    }
+
+    /**
+     * Reconstrói a visão imutável de um único recurso, reaproveitando as regras compiladas
+     */
+    private void reindex(Long resourceId) {
+        if (resourceId == null) {
+            return;
+        }
+
+        ResourceEntries entries = entriesByResource.get(resourceId);
+        if (entries == null || entries.isEmpty()) {
+            entriesByResource.remove(resourceId);
+            compiledRules.remove(resourceId);
+            schedules.remove(resourceId);
+            return;
+        }
+
+        CompiledRuleSet rules = compiledRules.computeIfAbsent(
+                resourceId, id -> CompiledRuleSet.compile(entries.rules.values()));
+
+        schedules.put(resourceId, ResourceSchedule.build(
+                rules, entries.exceptions.values(), entries.availabilities.values()));
+    }
+
+    private record ResourceDayKey(Long resourceId, long epochDay) {
+    }
+
+    /**
+     * Entidades de um recurso, agrupadas por ID
+     */
+    private static class ResourceEntries {
+        private final Map<Long, AvailabilityRule> rules = new LinkedHashMap<>();
+        private final Map<Long, AvailabilityException> exceptions = new LinkedHashMap<>();
+        private final Map<Long, ResourceAvailability> availabilities = new LinkedHashMap<>();
+
+        boolean isEmpty() {
+            return rules.isEmpty() && exceptions.isEmpty() && availabilities.isEmpty();
+        }
+    }
+}
@@ -2,23 +2,26 @@ package com.clinica.availability.service;
 
 import com.clinica.availability.dto.AvailabilityCheckRequestDTO;
 import com.clinica.availability.dto.AvailabilityResponseDTO;
-import com.clinica.availability.model.AvailabilityException;
-import com.clinica.availability.model.AvailabilityPattern;
-import com.clinica.availability.model.AvailabilityRule;
-import com.clinica.availability.model.ResourceAvailability;
+import com.clinica.availability.dto.FreeIntervalDTO;
+import com.clinica.availability.event.AvailabilityChangeEvent;
+import com.clinica.availability.event.AvailabilityChangePublisher;
 import com.clinica.availability.repository.ExceptionRepository;
 import com.clinica.availability.repository.PatternRepository;
 import com.clinica.availability.repository.RuleRepository;
 import com.clinica.availability.repository.ResourceAvailabilityRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 @Service
 public class AvailabilityService {
@@ -35,70 +38,185 @@ public class AvailabilityService {
     @Autowired
     private RuleRepository ruleRepository;
 
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private AvailabilityChangePublisher changePublisher;
+
+    /**
+     * Reconstrói o índice em memória a partir do banco de dados na inicialização
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        availabilityIndex.rebuild(
+                ruleRepository.findAll(),
+                exceptionRepository.findAll(),
+                availabilityRepository.findAll(),
+                patternRepository.findAll());
+    }
+
     public AvailabilityResponseDTO checkAvailability(AvailabilityCheckRequestDTO request) {
+        ensureIndexLoaded();
+        return evaluate(request.getResourceId(), request.getStartTime(), request.getEndTime());
+    }
+
+    /**
+     * Verifica vários pedidos de uma vez, agrupados por recurso.
+     * Os pedidos de um mesmo recurso reaproveitam seus mapas de bits; as respostas seguem a ordem dos pedidos.
+     */
+    public List<AvailabilityResponseDTO> checkAvailabilityBatch(List<AvailabilityCheckRequestDTO> requests) {
+        ensureIndexLoaded();
+
+        // 1. Agrupar as posições dos pedidos por recurso
+        Map<Long, List<Integer>> positionsByResource = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            positionsByResource
+                    .computeIfAbsent(requests.get(i).getResourceId(), id -> new ArrayList<>())
+                    .add(i);
+        }
+
+        // 2. Avaliar cada grupo em sequência, mantendo os dias do recurso quentes no cache
+        AvailabilityResponseDTO[] responses = new AvailabilityResponseDTO[requests.size()];
+        for (Map.Entry<Long, List<Integer>> group : positionsByResource.entrySet()) {
+            for (int position : group.getValue()) {
+                AvailabilityCheckRequestDTO request = requests.get(position);
+                responses[position] = evaluate(group.getKey(), request.getStartTime(), request.getEndTime());
+            }
+        }
+
+        return Arrays.asList(responses);
+    }
+
+    /**
+     * Lista os intervalos livres do recurso em [start, end), já mesclados, em uma única varredura
+     */
+    public List<FreeIntervalDTO> findFreeIntervals(Long resourceId, LocalDateTime start, LocalDateTime end) {
+        ensureIndexLoaded();
+        return FreeIntervalSweep.compute(
+                availabilityIndex.getSchedule(resourceId), availabilityIndex.getPatterns(), start, end);
+    }
+
+    /**
+     * Aplica as etapas de verificação sobre os mapas de bits por minuto do recurso.
+     * A janela é tratada como [início, fim) e cada etapa vira uma comparação de palavras mascaradas.
+     */
+    private AvailabilityResponseDTO evaluate(Long resourceId, LocalDateTime startTime, LocalDateTime endTime) {
+        LocalDate firstDay = startTime.toLocalDate();
+        long windowDays = Math.max(0, ChronoUnit.DAYS.between(firstDay, endTime.toLocalDate()) + 1);
+        if (windowDays > availabilityIndex.getBitmapMaxWindowDays()) {
+            return evaluateLongWindow(resourceId, startTime, endTime);
+        }
         AvailabilityResponseDTO response = new AvailabilityResponseDTO();
-        Long resourceId = request.getResourceId();
-        LocalDateTime startTime = request.getStartTime();
-        LocalDateTime endTime = request.getEndTime();
 
-        // 1. Verificar se há exceções
-        Optional<AvailabilityException> exception = exceptionRepository.findAll().stream()
-                .filter(e -> e.getResourceId().equals(resourceId)
-                        && e.getStartTime().isBefore(startTime)
-                        && e.getEndTime().isAfter(endTime))
-                .findFirst();
+        // 0. Recortar a janela em trechos de minutos por dia
+        int days = (int) windowDays;
+        ResourceDayBitmap[] bitmaps = new ResourceDayBitmap[days];
+        int[] fromMinute = new int[days];
+        int[] toMinute = new int[days];
 
-        if (exception.isPresent()) {
-            response.setAvailable(false);
-            response.setMessage("Indisponível devido a uma exceção.");
-            return response;
+        for (int i = 0; i < days; i++) {
+            LocalDate date = firstDay.plusDays(i);
+            LocalDateTime dayStart = date.atStartOfDay();
+            bitmaps[i] = availabilityIndex.getDayBitmap(resourceId, date);
+            fromMinute[i] = i == 0 ? ResourceDayBitmap.floorMinute(dayStart, startTime) : 0;
+            toMinute[i] = i == days - 1
+                    ? ResourceDayBitmap.ceilMinute(dayStart, endTime) : MinuteBitmap.MINUTES_PER_DAY;
+        }
+
+        // 1. Verificar se há exceções
+        for (int i = 0; i < days; i++) {
+            if (MinuteBitmap.anySet(bitmaps[i].getExceptionBits(), fromMinute[i], toMinute[i])) {
+                response.setAvailable(false);
+                response.setMessage("Indisponível devido a uma exceção.");
+                return response;
+            }
         }
 
         // 2. Verificar regras de disponibilidade
-        DayOfWeek dayOfWeek = startTime.getDayOfWeek();
-        String dayOfWeekStr = dayOfWeek.toString();
+        for (int i = 0; i < days; i++) {
+            if (!MinuteBitmap.allSet(bitmaps[i].getRuleBits(), fromMinute[i], toMinute[i])) {
+                response.setAvailable(false);
+                response.setMessage("Indisponível conforme as regras de disponibilidade.");
+                return response;
+            }
+        }
+
+        // 3. Verificar padrões de recorrência (CRON)
+        for (CompiledPattern pattern : availabilityIndex.getPatterns()) {
+            if (pattern.occursBetween(startTime, endTime)) {
+                response.setAvailable(false);
+                response.setMessage("Indisponível devido a um padrão de recorrência.");
+                return response;
+            }
+        }
+
+        // 4. Verificar disponibilidade específica
+        for (int i = 0; i < days; i++) {
+            if (MinuteBitmap.anySet(bitmaps[i].getUnavailableBits(), fromMinute[i], toMinute[i])) {
+                response.setAvailable(false);
+                response.setMessage("Indisponível conforme agendamento específico.");
+                return response;
+            }
+        }
+
+        response.setAvailable(true);
+        response.setMessage("Disponível.");
+        return response;
+    }
 
-        List<AvailabilityRule> rules = ruleRepository.findAll().stream()
-                .filter(rule -> rule.getResourceId().equals(resourceId) && rule.getDayOfWeek().equals(dayOfWeekStr))
-                .toList();
+    /**
+     * Mesmas etapas de evaluate para janelas longas, sem mapas de bits por dia nem cache:
+     * exceções e períodos indisponíveis por busca de sobreposição na visão do recurso e
+     * regras por um mapa de bits por dia da semana (no máximo sete)
+     */
+    private AvailabilityResponseDTO evaluateLongWindow(
+            Long resourceId, LocalDateTime startTime, LocalDateTime endTime) {
 
-        boolean availableByRule = rules.stream().anyMatch(rule -> {
-            LocalTime ruleStartTime = LocalTime.parse(rule.getStartTime(), DateTimeFormatter.ofPattern("HH:mm"));
-            LocalTime ruleEndTime = LocalTime.parse(rule.getEndTime(), DateTimeFormatter.ofPattern("HH:mm"));
-            LocalTime checkStartTime = startTime.toLocalTime();
-            LocalTime checkEndTime = endTime.toLocalTime();
+        AvailabilityResponseDTO response = new AvailabilityResponseDTO();
+        ResourceSchedule schedule = availabilityIndex.getSchedule(resourceId);
 
-            return checkStartTime.isAfter(ruleStartTime) && checkEndTime.isBefore(ruleEndTime);
-        });
+        // 0. Janela alinhada aos minutos, como nos mapas de bits
+        LocalDateTime from = startTime.truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime to = endTime.truncatedTo(ChronoUnit.MINUTES);
+        if (to.isBefore(endTime)) {
+            to = to.plusMinutes(1);
+        }
 
-        if (!availableByRule) {
+        // 1. Verificar se há exceções
+        if (schedule.hasException(from, to)) {
             response.setAvailable(false);
-            response.setMessage("Indisponível conforme as regras de disponibilidade.");
+            response.setMessage("Indisponível devido a uma exceção.");
             return response;
         }
 
+        // 2. Verificar regras de disponibilidade, dia a dia, com os minutos de cada dia da semana
+        long[][] ruleBitsByWeekday = new long[7][];
+        for (LocalDate date = startTime.toLocalDate(); !date.isAfter(endTime.toLocalDate()); date = date.plusDays(1)) {
+            int weekday = date.getDayOfWeek().getValue() - 1;
+            if (ruleBitsByWeekday[weekday] == null) {
+                ruleBitsByWeekday[weekday] = ResourceDayBitmap.ruleBits(schedule.getRules(), date.getDayOfWeek());
+            }
+            LocalDateTime dayStart = date.atStartOfDay();
+            if (!MinuteBitmap.allSet(ruleBitsByWeekday[weekday],
+                    ResourceDayBitmap.floorMinute(dayStart, startTime), ResourceDayBitmap.ceilMinute(dayStart, endTime))) {
+                response.setAvailable(false);
+                response.setMessage("Indisponível conforme as regras de disponibilidade.");
+                return response;
+            }
+        }
+
         // 3. Verificar padrões de recorrência (CRON)
-        List<AvailabilityPattern> patterns = patternRepository.findAll().stream()
-                .filter(pattern -> {
-                    //TODO: Implementar lógica de verificação de CRON
-                    return false;
-                })
-                .toList();
-
-        if (!patterns.isEmpty()) {
-            response.setAvailable(false);
-            response.setMessage("Indisponível devido a um padrão de recorrência.");
-            return response;
+        for (CompiledPattern pattern : availabilityIndex.getPatterns()) {
+            if (pattern.occursBetween(startTime, endTime)) {
+                response.setAvailable(false);
+                response.setMessage("Indisponível devido a um padrão de recorrência.");
+                return response;
+            }
         }
 
         // 4. Verificar disponibilidade específica
-        Optional<ResourceAvailability> specificAvailability = availabilityRepository.findAll().stream()
-                .filter(a -> a.getResourceId().equals(resourceId)
-                        && a.getStartTime().isBefore(startTime)
-                        && a.getEndTime().isAfter(endTime))
-                .findFirst();
-
-        if (specificAvailability.isPresent() && !specificAvailability.get().isAvailable()) {
+        if (schedule.hasUnavailablePeriod(from, to)) {
             response.setAvailable(false);
             response.setMessage("Indisponível conforme agendamento específico.");
             return response;
@@ -108,4 +226,38 @@ public class AvailabilityService {
         response.setMessage("Disponível.");
         return response;
     }
+
+    /**
+     * Aplica no índice local as alterações feitas em outros nós
+     */
+    @EventListener
+    public void onAvailabilityChange(AvailabilityChangeEvent event) {
+        if (!changePublisher.isRemote(event) || !availabilityIndex.isLoaded() || event.getEntityId() == null) {
+            return;
+        }
+
+        Long id = event.getEntityId();
+        switch (event.getEntityType()) {
+            case RULE -> ruleRepository.findById(id)
+                    .ifPresentOrElse(availabilityIndex::putRule, () -> availabilityIndex.removeRule(id));
+            case EXCEPTION -> exceptionRepository.findById(id)
+                    .ifPresentOrElse(availabilityIndex::putException, () -> availabilityIndex.removeException(id));
+            case AVAILABILITY -> availabilityRepository.findById(id)
+                    .ifPresentOrElse(availabilityIndex::putAvailability, () -> availabilityIndex.removeAvailability(id));
+            case PATTERN -> patternRepository.findById(id)
+                    .ifPresentOrElse(availabilityIndex::putPattern, () -> availabilityIndex.removePattern(id));
+            default -> {
+                // Slots não fazem parte do índice de disponibilidade
+            }
+        }
+    }
+
+    /**
+     * Carrega o índice sob demanda caso a verificação ocorra antes da inicialização
+     */
+    private void ensureIndexLoaded() {
+        if (!availabilityIndex.isLoaded()) {
+            rebuildIndex();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.clinica.availability.service;
+
+import com.clinica.availability.model.AvailabilityPattern;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Padrão de recorrência com a expressão CRON compilada. As ocorrências de um dia formam um
+ * mapa de bits por minuto calculado na compilação, então verificar uma janela custa um teste
+ * de dia e poucas comparações de palavras, sem estado compartilhado entre as threads.
+ */
+final class CompiledPattern {
+
+    private final Long patternId;
+    private final CronMatcher matcher;
+
+    private CompiledPattern(Long patternId, CronMatcher matcher) {
+        this.patternId = patternId;
+        this.matcher = matcher;
+    }
+
+    /**
+     * Compila um padrão; retorna null se a expressão CRON estiver ausente ou inválida
+     */
+    static CompiledPattern compile(AvailabilityPattern pattern) {
+        if (pattern.getCronExpression() == null) {
+            return null;
+        }
+        try {
+            return new CompiledPattern(pattern.getId(), CronMatcher.compile(pattern.getCronExpression()));
+        } catch (IllegalArgumentException e) {
+            return null; // Expressão inválida não bloqueia verificações
+        }
+    }
+
+    Long getPatternId() {
+        return patternId;
+    }
+
+    /**
+     * Verifica se alguma ocorrência do padrão cai na janela [start, end)
+     */
+    boolean occursBetween(LocalDateTime start, LocalDateTime end) {
+        for (LocalDate date = start.toLocalDate(); !date.isAfter(end.toLocalDate()); date = date.plusDays(1)) {
+            long[] minutes = matcher.minutesOn(date);
+            if (minutes == null) {
+                continue;
+            }
+            // A ocorrência do minuto m (instante m:00) está na janela se ceil(start) <= m < ceil(end)
+            LocalDateTime dayStart = date.atStartOfDay();
+            if (MinuteBitmap.anySet(minutes,
+                    ResourceDayBitmap.ceilMinute(dayStart, start), ResourceDayBitmap.ceilMinute(dayStart, end))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Minutos do dia em que o padrão ocorre, ou null se não ocorre na data (array compartilhado)
+     */
+    long[] minutesOn(LocalDate date) {
+        return matcher.minutesOn(date);
+    }
+}
@@ -0,0 +1,99 @@
+package com.clinica.availability.service;
+
+import com.clinica.availability.model.AvailabilityRule;
+
+import java.time.DayOfWeek;
+import java.util.Locale;
+
+/**
+ * Forma compacta de uma regra de disponibilidade: minutos do dia em inteiros
+ * e os dias da semana em uma máscara de bits (bit 0 = segunda-feira).
+ */
+final class CompiledRule {
+
+    static final long NANOS_PER_MINUTE = 60_000_000_000L;
+
+    private final Long ruleId;
+    private final int startMinute;
+    private final int endMinute;
+    private final int weekdayMask;
+
+    CompiledRule(Long ruleId, int startMinute, int endMinute, int weekdayMask) {
+        this.ruleId = ruleId;
+        this.startMinute = startMinute;
+        this.endMinute = endMinute;
+        this.weekdayMask = weekdayMask;
+    }
+
+    /**
+     * Compila uma regra; retorna null se horário ou dia da semana forem inválidos
+     */
+    static CompiledRule compile(AvailabilityRule rule) {
+        int startMinute = parseMinuteOfDay(rule.getStartTime());
+        int endMinute = parseMinuteOfDay(rule.getEndTime());
+        int weekdayMask = parseWeekdayMask(rule.getDayOfWeek());
+
+        if (startMinute < 0 || endMinute < 0 || weekdayMask == 0) {
+            return null;
+        }
+        return new CompiledRule(rule.getId(), startMinute, endMinute, weekdayMask);
+    }
+
+    Long getRuleId() {
+        return ruleId;
+    }
+
+    int getStartMinute() {
+        return startMinute;
+    }
+
+    int getEndMinute() {
+        return endMinute;
+    }
+
+    boolean appliesTo(DayOfWeek day) {
+        return (weekdayMask & weekdayBit(day)) != 0;
+    }
+
+    static int weekdayBit(DayOfWeek day) {
+        return 1 << (day.getValue() - 1);
+    }
+
+    /**
+     * Converte "HH:mm" em minutos do dia sem alocar objetos; -1 se inválido
+     */
+    static int parseMinuteOfDay(String time) {
+        if (time == null || time.length() != 5 || time.charAt(2) != ':') {
+            return -1;
+        }
+        int hour = digit(time, 0) * 10 + digit(time, 1);
+        int minute = digit(time, 3) * 10 + digit(time, 4);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return -1;
+        }
+        return hour * 60 + minute;
+    }
+
+    /**
+     * Converte "MONDAY" (ou uma lista "MONDAY,WEDNESDAY") em máscara de bits
+     */
+    static int parseWeekdayMask(String dayOfWeek) {
+        if (dayOfWeek == null) {
+            return 0;
+        }
+        int mask = 0;
+        for (String token : dayOfWeek.split(",")) {
+            try {
+                mask |= weekdayBit(DayOfWeek.valueOf(token.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                return 0; // Dia inválido nunca corresponde a uma verificação
+            }
+        }
+        return mask;
+    }
+
+    private static int digit(String value, int index) {
+        char c = value.charAt(index);
+        return c >= '0' && c <= '9' ? c - '0' : -100;
+    }
+}
@@ -0,0 +1,62 @@
+package com.clinica.availability.service;
+
+import com.clinica.availability.model.AvailabilityRule;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Regras compiladas de um recurso, indexadas por dia da semana
+ */
+final class CompiledRuleSet {
+
+    static final CompiledRuleSet EMPTY = new CompiledRuleSet(List.of());
+
+    private final List<CompiledRule> rules;
+    private final List<List<CompiledRule>> rulesByDay; // posição 0 = segunda-feira, ordenadas pelo início
+
+    private CompiledRuleSet(List<CompiledRule> rules) {
+        this.rules = rules;
+
+        List<List<CompiledRule>> byDay = new ArrayList<>(7);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            List<CompiledRule> dayRules = new ArrayList<>();
+            for (CompiledRule rule : rules) {
+                if (rule.appliesTo(day)) {
+                    dayRules.add(rule);
+                }
+            }
+            dayRules.sort(Comparator.comparingInt(CompiledRule::getStartMinute));
+            byDay.add(List.copyOf(dayRules));
+        }
+        this.rulesByDay = List.copyOf(byDay);
+    }
+
+    /**
+     * Compila as regras de um recurso, descartando as inválidas
+     */
+    static CompiledRuleSet compile(Collection<AvailabilityRule> source) {
+        List<CompiledRule> compiled = new ArrayList<>();
+        for (AvailabilityRule rule : source) {
+            CompiledRule compiledRule = CompiledRule.compile(rule);
+            if (compiledRule != null) {
+                compiled.add(compiledRule);
+            }
+        }
+        return compiled.isEmpty() ? EMPTY : new CompiledRuleSet(List.copyOf(compiled));
+    }
+
+    /**
+     * Regras que se aplicam ao dia da semana, ordenadas pelo início
+     */
+    List<CompiledRule> rulesFor(DayOfWeek day) {
+        return rulesByDay.get(day.getValue() - 1);
+    }
+
+    List<CompiledRule> getRules() {
+        return rules;
+    }
+}
@@ -0,0 +1,233 @@
+package com.clinica.availability.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * Expressão CRON compilada em mapas de bits (minuto, hora, dia, mês e dia da semana).
+ * Aceita o formato de 5 campos ("min hora dia mês dia-semana") e o de 6 campos do Spring,
+ * cujo primeiro campo (segundos) é ignorado. Avaliar um instante custa poucos testes de bit.
+ */
+final class CronMatcher {
+
+    private static final String[] MONTH_NAMES =
+            {"JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"};
+    private static final String[] DAY_NAMES = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+
+    // Limite de busca da próxima ocorrência (cobre expressões como 29/02)
+    private static final int MAX_SEARCH_DAYS = 366 * 8;
+
+    private final long minutes;      // bits 0..59
+    private final long hours;        // bits 0..23
+    private final long daysOfMonth;  // bits 1..31
+    private final long months;       // bits 1..12
+    private final long daysOfWeek;   // bits 0..6, 0 = domingo
+    private final boolean dayOfMonthRestricted;
+    private final boolean dayOfWeekRestricted;
+    private final long[] dayMinutes; // minutos de um dia que corresponde (formato MinuteBitmap)
+
+    private CronMatcher(long minutes, long hours, long daysOfMonth, long months, long daysOfWeek,
+                        boolean dayOfMonthRestricted, boolean dayOfWeekRestricted) {
+        this.minutes = minutes;
+        this.hours = hours;
+        this.daysOfMonth = daysOfMonth;
+        this.months = months;
+        this.daysOfWeek = daysOfWeek;
+        this.dayOfMonthRestricted = dayOfMonthRestricted;
+        this.dayOfWeekRestricted = dayOfWeekRestricted;
+
+        // Hora e minuto não dependem da data: os minutos de qualquer dia válido são os mesmos
+        this.dayMinutes = MinuteBitmap.create();
+        for (int h = nextBit(hours, 0); h >= 0 && h < 24; h = nextBit(hours, h + 1)) {
+            for (int m = nextBit(minutes, 0); m >= 0 && m < 60; m = nextBit(minutes, m + 1)) {
+                MinuteBitmap.setRange(dayMinutes, h * 60 + m, h * 60 + m + 1);
+            }
+        }
+    }
+
+    /**
+     * Compila uma expressão CRON; lança IllegalArgumentException se for inválida
+     */
+    static CronMatcher compile(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Empty cron expression");
+        }
+
+        String[] fields = expression.trim().split("\\s+");
+        if (fields.length == 6) {
+            String[] withoutSeconds = new String[5];
+            System.arraycopy(fields, 1, withoutSeconds, 0, 5);
+            fields = withoutSeconds;
+        } else if (fields.length != 5) {
+            throw new IllegalArgumentException("Cron expression must have 5 or 6 fields: " + expression);
+        }
+
+        long daysOfWeek = parseField(fields[4], 0, 7, DAY_NAMES, 0);
+        if ((daysOfWeek & (1L << 7)) != 0) {
+            daysOfWeek = (daysOfWeek | 1L) & ~(1L << 7); // 7 também representa domingo
+        }
+
+        return new CronMatcher(
+                parseField(fields[0], 0, 59, null, 0),
+                parseField(fields[1], 0, 23, null, 0),
+                parseField(fields[2], 1, 31, null, 0),
+                parseField(fields[3], 1, 12, MONTH_NAMES, 1),
+                daysOfWeek,
+                !isWildcard(fields[2]),
+                !isWildcard(fields[4]));
+    }
+
+    /**
+     * Verifica se o minuto do instante corresponde à expressão
+     */
+    boolean matches(LocalDateTime dateTime) {
+        return matchesDay(dateTime.toLocalDate())
+                && (hours & (1L << dateTime.getHour())) != 0
+                && (minutes & (1L << dateTime.getMinute())) != 0;
+    }
+
+    /**
+     * Verifica se a data corresponde aos campos de dia, mês e dia da semana
+     */
+    boolean matchesDay(LocalDate date) {
+        if ((months & (1L << date.getMonthValue())) == 0) {
+            return false;
+        }
+
+        boolean dayOfMonthMatches = (daysOfMonth & (1L << date.getDayOfMonth())) != 0;
+        boolean dayOfWeekMatches = (daysOfWeek & (1L << (date.getDayOfWeek().getValue() % 7))) != 0;
+
+        // Semântica CRON: com os dois campos restritos, basta um deles corresponder
+        if (dayOfMonthRestricted && dayOfWeekRestricted) {
+            return dayOfMonthMatches || dayOfWeekMatches;
+        }
+        return dayOfMonthMatches && dayOfWeekMatches;
+    }
+
+    /**
+     * Minutos do dia em que a expressão ocorre (mapa de bits de MinuteBitmap), ou null se a
+     * data não corresponde. O array é compartilhado e não deve ser alterado.
+     */
+    long[] minutesOn(LocalDate date) {
+        return matchesDay(date) ? dayMinutes : null;
+    }
+
+    /**
+     * Primeira ocorrência no instante informado ou depois dele (precisão de minuto), ou null
+     */
+    LocalDateTime nextOccurrence(LocalDateTime from) {
+        LocalDateTime start = from.truncatedTo(ChronoUnit.MINUTES);
+        if (start.isBefore(from)) {
+            start = start.plusMinutes(1);
+        }
+
+        LocalDate date = start.toLocalDate();
+        int hour = start.getHour();
+        int minute = start.getMinute();
+
+        for (int i = 0; i < MAX_SEARCH_DAYS; i++) {
+            if ((months & (1L << date.getMonthValue())) == 0) {
+                // Mês inteiro fora da expressão: pular para o primeiro dia do mês seguinte
+                date = date.withDayOfMonth(1).plusMonths(1);
+                hour = 0;
+                minute = 0;
+                continue;
+            }
+
+            if (matchesDay(date)) {
+                for (int h = nextBit(hours, hour); h >= 0 && h < 24; h = nextBit(hours, h + 1)) {
+                    int m = nextBit(minutes, h == hour ? minute : 0);
+                    if (m >= 0 && m < 60) {
+                        return date.atTime(h, m);
+                    }
+                }
+            }
+
+            date = date.plusDays(1);
+            hour = 0;
+            minute = 0;
+        }
+
+        return null;
+    }
+
+    /**
+     * Posição do primeiro bit ligado a partir de fromIndex, ou -1
+     */
+    private static int nextBit(long bits, int fromIndex) {
+        if (fromIndex >= 64) {
+            return -1;
+        }
+        long remaining = bits & (-1L << fromIndex);
+        return remaining == 0 ? -1 : Long.numberOfTrailingZeros(remaining);
+    }
+
+    private static boolean isWildcard(String field) {
+        return "*".equals(field) || "?".equals(field);
+    }
+
+    /**
+     * Converte um campo ("*", "1-5", "0/15", "MON,WED", ...) em mapa de bits
+     */
+    private static long parseField(String field, int min, int max, String[] names, int nameOffset) {
+        long bits = 0;
+
+        for (String part : field.split(",")) {
+            int step = 1;
+            String range = part;
+
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = parseNumber(part.substring(slash + 1), null, 0);
+                range = part.substring(0, slash);
+                if (step <= 0) {
+                    throw new IllegalArgumentException("Invalid cron step: " + part);
+                }
+            }
+
+            int low;
+            int high;
+            if (isWildcard(range)) {
+                low = min;
+                high = max;
+            } else {
+                int dash = range.indexOf('-');
+                if (dash > 0) {
+                    low = parseNumber(range.substring(0, dash), names, nameOffset);
+                    high = parseNumber(range.substring(dash + 1), names, nameOffset);
+                } else {
+                    low = parseNumber(range, names, nameOffset);
+                    high = slash >= 0 ? max : low; // "5/15" equivale a "5-max/15"
+                }
+            }
+
+            if (low < min || high > max || low > high) {
+                throw new IllegalArgumentException("Cron value out of range: " + part);
+            }
+
+            for (int value = low; value <= high; value += step) {
+                bits |= 1L << value;
+            }
+        }
+
+        return bits;
+    }
+
+    private static int parseNumber(String value, String[] names, int nameOffset) {
+        if (names != null) {
+            String upper = value.toUpperCase(Locale.ROOT);
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(upper)) {
+                    return i + nameOffset;
+                }
+            }
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cron value: " + value, e);
+        }
+    }
+}
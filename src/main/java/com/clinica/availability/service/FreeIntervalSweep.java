@@ -0,0 +1,228 @@
+package com.clinica.availability.service;
+
+import com.clinica.availability.dto.FreeIntervalDTO;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Varredura (sweep-line) que calcula os intervalos livres de um recurso em um horizonte.
+ * Cada janela de regra, exceção ou período indisponível vira um par de eventos em minutos;
+ * os eventos são ordenados uma vez e percorridos em sequência, emitindo os trechos cobertos
+ * por alguma regra e sem nenhum bloqueio. Os padrões de recorrência são expandidos por dia
+ * em um mapa de bits por minuto e subtraídos desses trechos, sem um evento por ocorrência.
+ */
+final class FreeIntervalSweep {
+
+    // Tipo do evento nos 2 bits menores; a ordem dentro do mesmo minuto não importa
+    private static final int BLOCK_END = 0;
+    private static final int COVER_END = 1;
+    private static final int COVER_START = 2;
+    private static final int BLOCK_START = 3;
+
+    private long[] events = new long[64];
+    private int size;
+
+    // Trechos livres como pares [início, fim) em minutos desde a época
+    private long[] free = new long[16];
+    private int freeSize;
+
+    // Minutos bloqueados por padrões no dia "patternDay" (OR de todos os padrões)
+    private final long[] patternBits = MinuteBitmap.create();
+    private long patternDay = Long.MIN_VALUE;
+    private boolean patternDayBlocked;
+
+    private FreeIntervalSweep() {
+    }
+
+    /**
+     * Intervalos livres e mesclados dentro de [start, end), com resolução de minuto
+     */
+    static List<FreeIntervalDTO> compute(ResourceSchedule schedule, List<CompiledPattern> patterns,
+                                         LocalDateTime start, LocalDateTime end) {
+        FreeIntervalSweep sweep = new FreeIntervalSweep();
+        long fromMinute = ceilEpochMinute(start);
+        long toMinute = floorEpochMinute(end);
+        if (fromMinute >= toMinute) {
+            return List.of();
+        }
+
+        // 1. Janelas das regras, dia a dia
+        for (LocalDate date = start.toLocalDate(); !date.isAfter(end.toLocalDate()); date = date.plusDays(1)) {
+            long dayMinute = date.toEpochDay() * MinuteBitmap.MINUTES_PER_DAY;
+            for (CompiledRule rule : schedule.getRules().rulesFor(date.getDayOfWeek())) {
+                sweep.add(dayMinute + rule.getStartMinute(), dayMinute + rule.getEndMinute(),
+                        COVER_START, COVER_END, fromMinute, toMinute);
+            }
+        }
+
+        // 2. Exceções e períodos indisponíveis que tocam o horizonte
+        schedule.forEachException(start, end, exception -> sweep.add(
+                floorEpochMinute(exception.getStartTime()), ceilEpochMinute(exception.getEndTime()),
+                BLOCK_START, BLOCK_END, fromMinute, toMinute));
+        schedule.forEachUnavailablePeriod(start, end, period -> sweep.add(
+                floorEpochMinute(period.getStartTime()), ceilEpochMinute(period.getEndTime()),
+                BLOCK_START, BLOCK_END, fromMinute, toMinute));
+
+        // 3. Varredura dos eventos
+        sweep.run();
+
+        // 4. Ocorrências dos padrões (cada uma bloqueia o seu minuto), subtraídas dia a dia
+        if (!patterns.isEmpty()) {
+            sweep.subtractPatterns(patterns);
+        }
+
+        return sweep.toIntervals();
+    }
+
+    /**
+     * Registra o par de eventos de [from, to), recortado ao horizonte
+     */
+    private void add(long from, long to, int startType, int endType, long fromMinute, long toMinute) {
+        from = Math.max(from, fromMinute);
+        to = Math.min(to, toMinute);
+        if (from >= to) {
+            return;
+        }
+        if (size + 2 > events.length) {
+            events = Arrays.copyOf(events, events.length * 2);
+        }
+        events[size++] = (from << 2) | startType;
+        events[size++] = (to << 2) | endType;
+    }
+
+    /**
+     * Percorre os eventos ordenados mantendo contadores de cobertura e bloqueio
+     */
+    private void run() {
+        Arrays.sort(events, 0, size);
+
+        int covering = 0;
+        int blocking = 0;
+        long openSince = Long.MIN_VALUE;
+
+        int i = 0;
+        while (i < size) {
+            long minute = events[i] >> 2;
+
+            // Aplica todos os eventos do mesmo minuto antes de avaliar o estado
+            while (i < size && (events[i] >> 2) == minute) {
+                switch ((int) (events[i] & 3)) {
+                    case BLOCK_END -> blocking--;
+                    case COVER_END -> covering--;
+                    case COVER_START -> covering++;
+                    default -> blocking++;
+                }
+                i++;
+            }
+
+            boolean isFree = covering > 0 && blocking == 0;
+            if (isFree && openSince == Long.MIN_VALUE) {
+                openSince = minute;
+            } else if (!isFree && openSince != Long.MIN_VALUE) {
+                addFree(openSince, minute);
+                openSince = Long.MIN_VALUE;
+            }
+        }
+    }
+
+    /**
+     * Remove dos trechos livres os minutos em que algum padrão ocorre
+     */
+    private void subtractPatterns(List<CompiledPattern> patterns) {
+        long[] intervals = Arrays.copyOf(free, freeSize);
+        freeSize = 0;
+
+        for (int i = 0; i < intervals.length; i += 2) {
+            long position = intervals[i];
+            long intervalEnd = intervals[i + 1];
+
+            while (position < intervalEnd) {
+                long day = Math.floorDiv(position, MinuteBitmap.MINUTES_PER_DAY);
+                long dayMinute = day * MinuteBitmap.MINUTES_PER_DAY;
+                long limit = Math.min(intervalEnd, dayMinute + MinuteBitmap.MINUTES_PER_DAY);
+
+                if (!loadPatternDay(day, patterns)) {
+                    addFree(position, limit);
+                } else {
+                    // Alterna entre trechos livres e minutos bloqueados dentro do dia
+                    int to = (int) (limit - dayMinute);
+                    int minute = (int) (position - dayMinute);
+                    while (minute < to) {
+                        int blocked = MinuteBitmap.nextSetBit(patternBits, minute, to);
+                        if (blocked > minute) {
+                            addFree(dayMinute + minute, dayMinute + blocked);
+                        }
+                        minute = MinuteBitmap.nextClearBit(patternBits, blocked, to);
+                    }
+                }
+                position = limit;
+            }
+        }
+    }
+
+    /**
+     * Monta em patternBits os minutos bloqueados no dia (os trechos chegam em ordem, então
+     * basta lembrar o último dia). Retorna false se nenhum padrão ocorre no dia.
+     */
+    private boolean loadPatternDay(long day, List<CompiledPattern> patterns) {
+        if (day == patternDay) {
+            return patternDayBlocked;
+        }
+        patternDay = day;
+        patternDayBlocked = false;
+        Arrays.fill(patternBits, 0L);
+
+        LocalDate date = LocalDate.ofEpochDay(day);
+        for (CompiledPattern pattern : patterns) {
+            long[] minutes = pattern.minutesOn(date);
+            if (minutes != null) {
+                for (int w = 0; w < patternBits.length; w++) {
+                    patternBits[w] |= minutes[w];
+                }
+                patternDayBlocked = true;
+            }
+        }
+        return patternDayBlocked;
+    }
+
+    /**
+     * Acrescenta um trecho livre, emendando no anterior quando são contíguos
+     */
+    private void addFree(long from, long to) {
+        if (freeSize > 0 && free[freeSize - 1] == from) {
+            free[freeSize - 1] = to;
+            return;
+        }
+        if (freeSize + 2 > free.length) {
+            free = Arrays.copyOf(free, free.length * 2);
+        }
+        free[freeSize++] = from;
+        free[freeSize++] = to;
+    }
+
+    private List<FreeIntervalDTO> toIntervals() {
+        List<FreeIntervalDTO> intervals = new ArrayList<>(freeSize / 2);
+        for (int i = 0; i < freeSize; i += 2) {
+            intervals.add(new FreeIntervalDTO(toDateTime(free[i]), toDateTime(free[i + 1])));
+        }
+        return intervals;
+    }
+
+    private static long floorEpochMinute(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static long ceilEpochMinute(LocalDateTime dateTime) {
+        long seconds = dateTime.toEpochSecond(ZoneOffset.UTC);
+        return dateTime.getNano() == 0 && seconds % 60 == 0 ? seconds / 60 : Math.floorDiv(seconds, 60) + 1;
+    }
+
+    private static LocalDateTime toDateTime(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,100 @@
+package com.clinica.availability.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Índice imutável de intervalos ordenados pelo início.
+ * Guarda o maior fim acumulado para parar a busca de sobreposições assim que
+ * nenhum intervalo anterior pode alcançar a janela.
+ */
+final class IntervalIndex<T> {
+
+    private static final IntervalIndex<?> EMPTY =
+            new IntervalIndex<>(new long[0], new long[0], new long[0], List.of());
+
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnds;      // maior fim entre os intervalos 0..i
+    private final List<T> values;
+
+    private IntervalIndex(long[] starts, long[] ends, long[] maxEnds, List<T> values) {
+        this.starts = starts;
+        this.ends = ends;
+        this.maxEnds = maxEnds;
+        this.values = values;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> IntervalIndex<T> empty() {
+        return (IntervalIndex<T>) EMPTY;
+    }
+
+    /**
+     * Monta o índice a partir dos valores e das funções de início/fim
+     */
+    static <T> IntervalIndex<T> of(List<T> source, ToLongFunction<T> start, ToLongFunction<T> end) {
+        if (source.isEmpty()) {
+            return empty();
+        }
+
+        List<T> sorted = new ArrayList<>(source);
+        sorted.sort(Comparator.comparingLong(start));
+
+        int size = sorted.size();
+        long[] starts = new long[size];
+        long[] ends = new long[size];
+        long[] maxEnds = new long[size];
+
+        for (int i = 0; i < size; i++) {
+            T value = sorted.get(i);
+            starts[i] = start.applyAsLong(value);
+            long valueEnd = end.applyAsLong(value);
+            ends[i] = valueEnd;
+
+            maxEnds[i] = i == 0 ? valueEnd : Math.max(valueEnd, maxEnds[i - 1]);
+        }
+
+        return new IntervalIndex<>(starts, ends, maxEnds, List.copyOf(sorted));
+    }
+
+    /**
+     * Percorre os intervalos que se sobrepõem a [from, to), do início mais tardio para o mais cedo.
+     * Para assim que o maior fim acumulado fica antes de "from".
+     */
+    void forEachOverlapping(long from, long to, Consumer<T> action) {
+        for (int i = countStartsBefore(to) - 1; i >= 0 && maxEnds[i] > from; i--) {
+            if (ends[i] > from) {
+                action.accept(values.get(i));
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    List<T> values() {
+        return values;
+    }
+
+    /**
+     * Quantidade de intervalos com início estritamente anterior ao valor (busca binária)
+     */
+    private int countStartsBefore(long value) {
+        int low = 0;
+        int high = starts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,52 @@
+package com.clinica.availability.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Cache LRU sincronizado com limite de entradas ajustável
+ */
+final class LruCache<K, V> {
+
+    private final LinkedHashMap<K, V> entries;
+    private volatile int maxEntries;
+
+    LruCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.maxEntries;
+            }
+        };
+    }
+
+    synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    synchronized void removeIf(Predicate<K> filter) {
+        entries.keySet().removeIf(filter);
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+}
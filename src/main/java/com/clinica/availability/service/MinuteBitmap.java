@@ -0,0 +1,104 @@
+package com.clinica.availability.service;
+
+/**
+ * Operações sobre mapas de bits de um dia com resolução de minuto (1440 bits em long[23]).
+ * Os intervalos são semiabertos: [from, to) em minutos do dia.
+ */
+final class MinuteBitmap {
+
+    static final int MINUTES_PER_DAY = 1440;
+    static final int WORDS = (MINUTES_PER_DAY + 63) / 64;
+
+    private MinuteBitmap() {
+    }
+
+    static long[] create() {
+        return new long[WORDS];
+    }
+
+    static void setRange(long[] words, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        for (int w = firstWord; w <= lastWord; w++) {
+            words[w] |= mask(w, firstWord, lastWord, from, to);
+        }
+    }
+
+    /**
+     * Verifica se algum minuto de [from, to) está marcado
+     */
+    static boolean anySet(long[] words, int from, int to) {
+        if (from >= to) {
+            return false;
+        }
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        for (int w = firstWord; w <= lastWord; w++) {
+            if ((words[w] & mask(w, firstWord, lastWord, from, to)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Verifica se todos os minutos de [from, to) estão marcados
+     */
+    static boolean allSet(long[] words, int from, int to) {
+        if (from >= to) {
+            return true;
+        }
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        for (int w = firstWord; w <= lastWord; w++) {
+            long mask = mask(w, firstWord, lastWord, from, to);
+            if ((words[w] & mask) != mask) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Primeiro minuto marcado em [from, to), ou "to" se não houver
+     */
+    static int nextSetBit(long[] words, int from, int to) {
+        return nextBit(words, from, to, 0L);
+    }
+
+    /**
+     * Primeiro minuto não marcado em [from, to), ou "to" se não houver
+     */
+    static int nextClearBit(long[] words, int from, int to) {
+        return nextBit(words, from, to, -1L);
+    }
+
+    private static int nextBit(long[] words, int from, int to, long invert) {
+        if (from >= to) {
+            return to;
+        }
+        int w = from >>> 6;
+        long word = (words[w] ^ invert) & (-1L << (from & 63));
+        while (word == 0) {
+            if (++w << 6 >= to) {
+                return to;
+            }
+            word = words[w] ^ invert;
+        }
+        return Math.min(to, (w << 6) + Long.numberOfTrailingZeros(word));
+    }
+
+    private static long mask(int word, int firstWord, int lastWord, int from, int to) {
+        long mask = -1L;
+        if (word == firstWord) {
+            mask &= -1L << (from & 63);
+        }
+        if (word == lastWord) {
+            mask &= -1L >>> (63 - ((to - 1) & 63));
+        }
+        return mask;
+    }
+}
@@ -1,5 +1,7 @@
 package com.clinica.availability.service;
 
+import com.clinica.availability.event.AvailabilityChangeEvent;
+import com.clinica.availability.event.AvailabilityChangePublisher;
 import com.clinica.availability.model.AvailabilityPattern;
 import com.clinica.availability.repository.PatternRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +16,12 @@ public class PatternService {
     @Autowired
     private PatternRepository patternRepository;
 
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private AvailabilityChangePublisher changePublisher;
+
     public List<AvailabilityPattern> getAllPatterns() {
         return patternRepository.findAll();
     }
@@ -23,18 +31,31 @@ public class PatternService {
     }
 
     public AvailabilityPattern createPattern(AvailabilityPattern pattern) {
-        return patternRepository.save(pattern);
+        AvailabilityPattern saved = patternRepository.save(pattern);
+        availabilityIndex.putPattern(saved);
+        changePublisher.patternChanged(saved);
+        return saved;
     }
 
     public Optional<AvailabilityPattern> updatePattern(Long id, AvailabilityPattern pattern) {
         return patternRepository.findById(id)
                 .map(existingPattern -> {
+                    // Evento do estado anterior montado antes do save (merge() sobrescreve a entidade carregada)
+                    AvailabilityChangeEvent previous = changePublisher.patternEvent(existingPattern);
                     pattern.setId(id); // Garante que estamos atualizando o padrão correto
-                    return patternRepository.save(pattern);
+                    AvailabilityPattern saved = patternRepository.save(pattern);
+                    availabilityIndex.putPattern(saved);
+                    changePublisher.publish(previous);
+                    changePublisher.patternChanged(saved);
+                    return saved;
                 });
     }
 
     public void deletePattern(Long id) {
-        patternRepository.deleteById(id);
+        // Reaproveita a entidade carregada: delete(entity) não a busca de novo
+        Optional<AvailabilityPattern> existing = patternRepository.findById(id);
+        existing.ifPresent(patternRepository::delete);
+        availabilityIndex.removePattern(id);
+        existing.ifPresent(changePublisher::patternChanged);
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.clinica.availability.service;
 
+import com.clinica.availability.event.AvailabilityChangeEvent;
+import com.clinica.availability.event.AvailabilityChangePublisher;
 import com.clinica.availability.model.ResourceAvailability;
 import com.clinica.availability.repository.ResourceAvailabilityRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +16,12 @@ public class ResourceAvailabilityService {
     @Autowired
     private ResourceAvailabilityRepository resourceAvailabilityRepository;
 
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private AvailabilityChangePublisher changePublisher;
+
     public List<ResourceAvailability> getAllResourceAvailabilities() {
         return resourceAvailabilityRepository.findAll();
     }
@@ -23,18 +31,31 @@ public class ResourceAvailabilityService {
     }
 
     public ResourceAvailability createResourceAvailability(ResourceAvailability resourceAvailability) {
-        return resourceAvailabilityRepository.save(resourceAvailability);
+        ResourceAvailability saved = resourceAvailabilityRepository.save(resourceAvailability);
+        availabilityIndex.putAvailability(saved);
+        changePublisher.availabilityChanged(saved);
+        return saved;
     }
 
     public Optional<ResourceAvailability> updateResourceAvailability(Long id, ResourceAvailability resourceAvailability) {
         return resourceAvailabilityRepository.findById(id)
                 .map(existingResourceAvailability -> {
+                    // Evento do estado anterior montado antes do save (merge() sobrescreve a entidade carregada)
+                    AvailabilityChangeEvent previous = changePublisher.availabilityEvent(existingResourceAvailability);
                     resourceAvailability.setId(id); // Garante que estamos atualizando a disponibilidade correta
-                    return resourceAvailabilityRepository.save(resourceAvailability);
+                    ResourceAvailability saved = resourceAvailabilityRepository.save(resourceAvailability);
+                    availabilityIndex.putAvailability(saved);
+                    changePublisher.publish(previous);
+                    changePublisher.availabilityChanged(saved);
+                    return saved;
                 });
     }
 
     public void deleteResourceAvailability(Long id) {
-        resourceAvailabilityRepository.deleteById(id);
+        // Reaproveita a entidade carregada: delete(entity) não a busca de novo
+        Optional<ResourceAvailability> existing = resourceAvailabilityRepository.findById(id);
+        existing.ifPresent(resourceAvailabilityRepository::delete);
+        availabilityIndex.removeAvailability(id);
+        existing.ifPresent(changePublisher::availabilityChanged);
     }
 }
\ No newline at end of file
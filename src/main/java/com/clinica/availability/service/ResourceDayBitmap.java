@@ -0,0 +1,94 @@
+package com.clinica.availability.service;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Agenda de um recurso em um dia, em mapas de bits por minuto.
+ * Cada camada guarda uma etapa da verificação: minutos cobertos por regras,
+ * bloqueados por exceções e bloqueados por disponibilidade específica.
+ */
+final class ResourceDayBitmap {
+
+    private final long[] ruleBits;
+    private final long[] exceptionBits;
+    private final long[] unavailableBits;
+
+    private ResourceDayBitmap(long[] ruleBits, long[] exceptionBits, long[] unavailableBits) {
+        this.ruleBits = ruleBits;
+        this.exceptionBits = exceptionBits;
+        this.unavailableBits = unavailableBits;
+    }
+
+    /**
+     * Combina regras, exceções e disponibilidades específicas do recurso para o dia
+     */
+    static ResourceDayBitmap build(ResourceSchedule schedule, LocalDate date) {
+        long[] ruleBits = ruleBits(schedule.getRules(), date.getDayOfWeek());
+        long[] exceptionBits = MinuteBitmap.create();
+        long[] unavailableBits = MinuteBitmap.create();
+
+        LocalDateTime dayStart = date.atStartOfDay();
+        LocalDateTime dayEnd = dayStart.plusDays(1);
+
+        schedule.forEachException(dayStart, dayEnd, exception -> MinuteBitmap.setRange(exceptionBits,
+                floorMinute(dayStart, exception.getStartTime()), ceilMinute(dayStart, exception.getEndTime())));
+
+        schedule.forEachUnavailablePeriod(dayStart, dayEnd, period -> MinuteBitmap.setRange(unavailableBits,
+                floorMinute(dayStart, period.getStartTime()), ceilMinute(dayStart, period.getEndTime())));
+
+        return new ResourceDayBitmap(ruleBits, exceptionBits, unavailableBits);
+    }
+
+    /**
+     * Minutos cobertos pelas regras no dia da semana
+     */
+    static long[] ruleBits(CompiledRuleSet rules, DayOfWeek day) {
+        long[] bits = MinuteBitmap.create();
+        for (CompiledRule rule : rules.rulesFor(day)) {
+            MinuteBitmap.setRange(bits, rule.getStartMinute(), rule.getEndMinute());
+        }
+        return bits;
+    }
+
+    long[] getRuleBits() {
+        return ruleBits;
+    }
+
+    long[] getExceptionBits() {
+        return exceptionBits;
+    }
+
+    long[] getUnavailableBits() {
+        return unavailableBits;
+    }
+
+    /**
+     * Minuto do dia que contém o instante, limitado a [0, 1440]
+     */
+    static int floorMinute(LocalDateTime dayStart, LocalDateTime instant) {
+        if (!instant.isAfter(dayStart)) {
+            return 0;
+        }
+        if (!instant.isBefore(dayStart.plusDays(1))) {
+            return MinuteBitmap.MINUTES_PER_DAY;
+        }
+        return (int) Duration.between(dayStart, instant).toMinutes();
+    }
+
+    /**
+     * Primeiro minuto do dia a partir do instante (arredondado para cima), limitado a [0, 1440]
+     */
+    static int ceilMinute(LocalDateTime dayStart, LocalDateTime instant) {
+        if (!instant.isAfter(dayStart)) {
+            return 0;
+        }
+        if (!instant.isBefore(dayStart.plusDays(1))) {
+            return MinuteBitmap.MINUTES_PER_DAY;
+        }
+        long nanos = Duration.between(dayStart, instant).toNanos();
+        return (int) ((nanos + CompiledRule.NANOS_PER_MINUTE - 1) / CompiledRule.NANOS_PER_MINUTE);
+    }
+}
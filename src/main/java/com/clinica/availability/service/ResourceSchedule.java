@@ -0,0 +1,106 @@
+package com.clinica.availability.service;
+
+import com.clinica.availability.model.AvailabilityException;
+import com.clinica.availability.model.ResourceAvailability;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Visão imutável e indexada das regras, exceções e disponibilidades de um recurso
+ */
+final class ResourceSchedule {
+
+    static final ResourceSchedule EMPTY = new ResourceSchedule(
+            IntervalIndex.empty(), CompiledRuleSet.EMPTY, IntervalIndex.empty());
+
+    private final IntervalIndex<AvailabilityException> exceptions;
+    private final CompiledRuleSet rules;
+    private final IntervalIndex<ResourceAvailability> unavailablePeriods;
+
+    private ResourceSchedule(
+            IntervalIndex<AvailabilityException> exceptions,
+            CompiledRuleSet rules,
+            IntervalIndex<ResourceAvailability> unavailablePeriods) {
+        this.exceptions = exceptions;
+        this.rules = rules;
+        this.unavailablePeriods = unavailablePeriods;
+    }
+
+    /**
+     * Monta a visão indexada de um recurso a partir das regras já compiladas e das entidades atuais
+     */
+    static ResourceSchedule build(
+            CompiledRuleSet rules,
+            Collection<AvailabilityException> exceptions,
+            Collection<ResourceAvailability> availabilities) {
+
+        List<AvailabilityException> validExceptions = new ArrayList<>();
+        for (AvailabilityException exception : exceptions) {
+            if (exception.getStartTime() != null && exception.getEndTime() != null) {
+                validExceptions.add(exception);
+            }
+        }
+
+        // Apenas períodos marcados como indisponíveis bloqueiam a agenda
+        List<ResourceAvailability> unavailable = new ArrayList<>();
+        for (ResourceAvailability availability : availabilities) {
+            if (!availability.isAvailable()
+                    && availability.getStartTime() != null && availability.getEndTime() != null) {
+                unavailable.add(availability);
+            }
+        }
+
+        return new ResourceSchedule(
+                IntervalIndex.of(validExceptions, e -> toKey(e.getStartTime()), e -> toKey(e.getEndTime())),
+                rules,
+                IntervalIndex.of(unavailable, a -> toKey(a.getStartTime()), a -> toKey(a.getEndTime())));
+    }
+
+    CompiledRuleSet getRules() {
+        return rules;
+    }
+
+    /**
+     * Percorre as exceções que se sobrepõem a [from, to)
+     */
+    void forEachException(LocalDateTime from, LocalDateTime to, Consumer<AvailabilityException> action) {
+        exceptions.forEachOverlapping(toKey(from), toKey(to), action);
+    }
+
+    /**
+     * Percorre os períodos indisponíveis que se sobrepõem a [from, to)
+     */
+    void forEachUnavailablePeriod(LocalDateTime from, LocalDateTime to, Consumer<ResourceAvailability> action) {
+        unavailablePeriods.forEachOverlapping(toKey(from), toKey(to), action);
+    }
+
+    /**
+     * Indica se alguma exceção de duração não nula se sobrepõe a [from, to)
+     */
+    boolean hasException(LocalDateTime from, LocalDateTime to) {
+        boolean[] found = new boolean[1];
+        forEachException(from, to, exception -> found[0] |= exception.getEndTime().isAfter(exception.getStartTime()));
+        return found[0];
+    }
+
+    /**
+     * Indica se algum período indisponível de duração não nula se sobrepõe a [from, to)
+     */
+    boolean hasUnavailablePeriod(LocalDateTime from, LocalDateTime to) {
+        boolean[] found = new boolean[1];
+        forEachUnavailablePeriod(from, to, period -> found[0] |= period.getEndTime().isAfter(period.getStartTime()));
+        return found[0];
+    }
+
+    /**
+     * Converte uma data/hora local em uma chave numérica ordenável (nanossegundos)
+     */
+    static long toKey(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + dateTime.getNano();
+    }
+}
@@ -1,5 +1,7 @@
 package com.clinica.availability.service;
 
+import com.clinica.availability.event.AvailabilityChangeEvent;
+import com.clinica.availability.event.AvailabilityChangePublisher;
 import com.clinica.availability.model.AvailabilityRule;
 import com.clinica.availability.repository.RuleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +16,12 @@ public class RuleService {
     @Autowired
     private RuleRepository ruleRepository;
 
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private AvailabilityChangePublisher changePublisher;
+
     public List<AvailabilityRule> getAllRules() {
         return ruleRepository.findAll();
     }
@@ -23,18 +31,31 @@ public class RuleService {
     }
 
     public AvailabilityRule createRule(AvailabilityRule rule) {
-        return ruleRepository.save(rule);
+        AvailabilityRule saved = ruleRepository.save(rule);
+        availabilityIndex.putRule(saved);
+        changePublisher.ruleChanged(saved);
+        return saved;
     }
 
     public Optional<AvailabilityRule> updateRule(Long id, AvailabilityRule rule) {
         return ruleRepository.findById(id)
                 .map(existingRule -> {
+                    // Evento do estado anterior montado antes do save (merge() sobrescreve a entidade carregada)
+                    AvailabilityChangeEvent previous = changePublisher.ruleEvent(existingRule);
                     rule.setId(id); // Garante que estamos atualizando a regra correta
-                    return ruleRepository.save(rule);
+                    AvailabilityRule saved = ruleRepository.save(rule);
+                    availabilityIndex.putRule(saved);
+                    changePublisher.publish(previous);
+                    changePublisher.ruleChanged(saved);
+                    return saved;
                 });
     }
 
     public void deleteRule(Long id) {
-        ruleRepository.deleteById(id);
+        // Reaproveita a entidade carregada: delete(entity) não a busca de novo
+        Optional<AvailabilityRule> existing = ruleRepository.findById(id);
+        existing.ifPresent(ruleRepository::delete);
+        availabilityIndex.removeRule(id);
+        existing.ifPresent(changePublisher::ruleChanged);
     }
 }
\ No newline at end of file
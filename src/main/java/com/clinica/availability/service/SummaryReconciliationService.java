@@ -8,6 +8,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
@@ -82,17 +83,13 @@ public class SummaryReconciliationService {
              .append("completed_slots, tenant_id, needs_recalculation) ")
              .append("SELECT ")
              .append("    ?, ?, ?, HOUR(start_time) as hour, ")
-             .append("    COUNT(*) as total_slots, ")
-             .append("    SUM(CASE WHEN status = 'AVAILABLE' THEN 1 ELSE 0 END) as available_slots, ")
-             .append("    SUM(CASE WHEN status = 'BOOKED' THEN 1 ELSE 0 END) as booked_slots, ")
-             .append("    SUM(CASE WHEN status = 'BLOCKED' THEN 1 ELSE 0 END) as blocked_slots, ")
-             .append("    SUM(CASE WHEN status = 'COMPLETED' THEN 1 ELSE 0 END) as completed_slots, ")
+             .append(OccupancySummaryRepository.SLOT_COUNTS)
              .append("    ?, 0 ")
              .append("FROM (");
 
         // Adicionar consulta para tabela principal
         query.append("SELECT * FROM time_slot WHERE resource_type = ? AND resource_id = ? ")
-             .append("AND tenant_id = ? AND DATE(start_time) = ? ");
+             .append("AND tenant_id = ? AND start_time >= ? AND start_time < ? ");
 
         // Verificar e adicionar tabela de arquivo do ano correspondente
         String archiveTable = "time_slot_archive_" + date.getYear();
@@ -100,25 +97,27 @@ public class SummaryReconciliationService {
             query.append("UNION ALL ")
                  .append("SELECT * FROM ").append(archiveTable)
                  .append(" WHERE resource_type = ? AND resource_id = ? ")
-                 .append("AND tenant_id = ? AND DATE(start_time) = ? ");
+                 .append("AND tenant_id = ? AND start_time >= ? AND start_time < ? ");
         }
 
         query.append(") as combined_slots ")
              .append("GROUP BY HOUR(start_time)");
 
-        // Executar a consulta com parâmetros
+        // Executar a consulta com parâmetros (intervalo do dia, para usar o índice de start_time)
+        LocalDateTime dayStart = date.atStartOfDay();
+        LocalDateTime dayEnd = date.plusDays(1).atStartOfDay();
         if (tableExists(archiveTable)) {
             jdbcTemplate.update(
                 query.toString(),
                 resourceType, resourceId, date, tenantId,
-                resourceType, resourceId, tenantId, date,
-                resourceType, resourceId, tenantId, date
+                resourceType, resourceId, tenantId, dayStart, dayEnd,
+                resourceType, resourceId, tenantId, dayStart, dayEnd
             );
         } else {
             jdbcTemplate.update(
                 query.toString(),
                 resourceType, resourceId, date, tenantId,
-                resourceType, resourceId, tenantId, date
+                resourceType, resourceId, tenantId, dayStart, dayEnd
             );
         }
     }
@@ -0,0 +1,46 @@
+package com.clinica.availability.timeslot.dto;
+
+import java.util.List;
+
+/**
+ * Reserva de vários slots para um mesmo agendamento (procedimentos longos): todos ou nenhum
+ */
+public class BatchBookingRequestDTO {
+
+    private List<Long> slotIds;
+    private Long bookingId;
+    private String modifiedBy;
+    private String reason;
+
+    public List<Long> getSlotIds() {
+        return slotIds;
+    }
+
+    public void setSlotIds(List<Long> slotIds) {
+        this.slotIds = slotIds;
+    }
+
+    public Long getBookingId() {
+        return bookingId;
+    }
+
+    public void setBookingId(Long bookingId) {
+        this.bookingId = bookingId;
+    }
+
+    public String getModifiedBy() {
+        return modifiedBy;
+    }
+
+    public void setModifiedBy(String modifiedBy) {
+        this.modifiedBy = modifiedBy;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+}
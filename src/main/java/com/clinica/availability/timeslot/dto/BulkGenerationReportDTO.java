@@ -0,0 +1,56 @@
+package com.clinica.availability.timeslot.dto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resultado agregado de uma geração em massa
+ */
+public class BulkGenerationReportDTO {
+
+    private int resourcesProcessed;
+    private int resourcesFailed;
+    private long slotsGenerated;
+    private long durationMillis;
+    private Map<String, String> failures = new LinkedHashMap<>(); // "tipo:id" -> mensagem de erro
+
+    public int getResourcesProcessed() {
+        return resourcesProcessed;
+    }
+
+    public void setResourcesProcessed(int resourcesProcessed) {
+        this.resourcesProcessed = resourcesProcessed;
+    }
+
+    public int getResourcesFailed() {
+        return resourcesFailed;
+    }
+
+    public void setResourcesFailed(int resourcesFailed) {
+        this.resourcesFailed = resourcesFailed;
+    }
+
+    public long getSlotsGenerated() {
+        return slotsGenerated;
+    }
+
+    public void setSlotsGenerated(long slotsGenerated) {
+        this.slotsGenerated = slotsGenerated;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public Map<String, String> getFailures() {
+        return failures;
+    }
+
+    public void setFailures(Map<String, String> failures) {
+        this.failures = failures;
+    }
+}
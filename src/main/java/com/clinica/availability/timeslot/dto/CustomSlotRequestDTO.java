@@ -0,0 +1,111 @@
+package com.clinica.availability.timeslot.dto;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Parâmetros de uma geração avulsa (campanhas, mutirões)
+ */
+public class CustomSlotRequestDTO {
+
+    private String resourceType;
+    private Long resourceId;
+    private Long tenantId;
+    private LocalDateTime startDateTime;
+    private LocalDateTime endDateTime;
+    private LocalTime dailyStartTime; // Opcional: restringe cada dia a [dailyStartTime, dailyEndTime)
+    private LocalTime dailyEndTime;
+    private int durationMinutes;
+    private int gapMinutes; // Intervalo entre o fim de um slot e o início do próximo
+    private int parallelCapacity = 1; // Atendimentos simultâneos por horário
+    private List<TimeWindowDTO> exclusions; // Janelas sem atendimento (ex.: almoço)
+
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    public void setResourceType(String resourceType) {
+        this.resourceType = resourceType;
+    }
+
+    public Long getResourceId() {
+        return resourceId;
+    }
+
+    public void setResourceId(Long resourceId) {
+        this.resourceId = resourceId;
+    }
+
+    public Long getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(Long tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public LocalDateTime getStartDateTime() {
+        return startDateTime;
+    }
+
+    public void setStartDateTime(LocalDateTime startDateTime) {
+        this.startDateTime = startDateTime;
+    }
+
+    public LocalDateTime getEndDateTime() {
+        return endDateTime;
+    }
+
+    public void setEndDateTime(LocalDateTime endDateTime) {
+        this.endDateTime = endDateTime;
+    }
+
+    public LocalTime getDailyStartTime() {
+        return dailyStartTime;
+    }
+
+    public void setDailyStartTime(LocalTime dailyStartTime) {
+        this.dailyStartTime = dailyStartTime;
+    }
+
+    public LocalTime getDailyEndTime() {
+        return dailyEndTime;
+    }
+
+    public void setDailyEndTime(LocalTime dailyEndTime) {
+        this.dailyEndTime = dailyEndTime;
+    }
+
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public void setDurationMinutes(int durationMinutes) {
+        this.durationMinutes = durationMinutes;
+    }
+
+    public int getGapMinutes() {
+        return gapMinutes;
+    }
+
+    public void setGapMinutes(int gapMinutes) {
+        this.gapMinutes = gapMinutes;
+    }
+
+    public int getParallelCapacity() {
+        return parallelCapacity;
+    }
+
+    public void setParallelCapacity(int parallelCapacity) {
+        this.parallelCapacity = parallelCapacity;
+    }
+
+    public List<TimeWindowDTO> getExclusions() {
+        return exclusions;
+    }
+
+    public void setExclusions(List<TimeWindowDTO> exclusions) {
+        this.exclusions = exclusions;
+    }
+}
@@ -0,0 +1,146 @@
+package com.clinica.availability.timeslot.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Andamento de um job de geração em blocos
+ */
+public class GenerationJobStatusDTO {
+
+    private Long id;
+    private String resourceType;
+    private Long resourceId;
+    private String status; // RUNNING, COMPLETED ou FAILED
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private LocalDate nextDate; // Checkpoint: primeiro dia ainda não gravado
+    private int chunksDone;
+    private int chunksTotal;
+    private long slotsGenerated;
+    private double progress; // 0..1
+    private double slotsPerSecond;
+    private String error;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    public void setResourceType(String resourceType) {
+        this.resourceType = resourceType;
+    }
+
+    public Long getResourceId() {
+        return resourceId;
+    }
+
+    public void setResourceId(Long resourceId) {
+        this.resourceId = resourceId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    public LocalDate getNextDate() {
+        return nextDate;
+    }
+
+    public void setNextDate(LocalDate nextDate) {
+        this.nextDate = nextDate;
+    }
+
+    public int getChunksDone() {
+        return chunksDone;
+    }
+
+    public void setChunksDone(int chunksDone) {
+        this.chunksDone = chunksDone;
+    }
+
+    public int getChunksTotal() {
+        return chunksTotal;
+    }
+
+    public void setChunksTotal(int chunksTotal) {
+        this.chunksTotal = chunksTotal;
+    }
+
+    public long getSlotsGenerated() {
+        return slotsGenerated;
+    }
+
+    public void setSlotsGenerated(long slotsGenerated) {
+        this.slotsGenerated = slotsGenerated;
+    }
+
+    public double getProgress() {
+        return progress;
+    }
+
+    public void setProgress(double progress) {
+        this.progress = progress;
+    }
+
+    public double getSlotsPerSecond() {
+        return slotsPerSecond;
+    }
+
+    public void setSlotsPerSecond(double slotsPerSecond) {
+        this.slotsPerSecond = slotsPerSecond;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
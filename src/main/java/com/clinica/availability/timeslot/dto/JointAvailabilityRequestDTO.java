@@ -0,0 +1,56 @@
+package com.clinica.availability.timeslot.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Pedido de busca conjunta: recursos que precisam estar livres ao mesmo tempo
+ */
+public class JointAvailabilityRequestDTO {
+
+    private List<ResourceRefDTO> resources;
+    private LocalDateTime after;
+    private int durationMinutes;
+    private int limit = 10;
+    private int horizonDays = 30;
+
+    public List<ResourceRefDTO> getResources() {
+        return resources;
+    }
+
+    public void setResources(List<ResourceRefDTO> resources) {
+        this.resources = resources;
+    }
+
+    public LocalDateTime getAfter() {
+        return after;
+    }
+
+    public void setAfter(LocalDateTime after) {
+        this.after = after;
+    }
+
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public void setDurationMinutes(int durationMinutes) {
+        this.durationMinutes = durationMinutes;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    public int getHorizonDays() {
+        return horizonDays;
+    }
+
+    public void setHorizonDays(int horizonDays) {
+        this.horizonDays = horizonDays;
+    }
+}
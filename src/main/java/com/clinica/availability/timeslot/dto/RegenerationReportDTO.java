@@ -0,0 +1,44 @@
+package com.clinica.availability.timeslot.dto;
+
+/**
+ * Resultado de uma regeneração diferencial
+ */
+public class RegenerationReportDTO {
+
+    private int inserted;
+    private int deleted;
+    private int updated;
+    private int kept;
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(int inserted) {
+        this.inserted = inserted;
+    }
+
+    public int getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(int deleted) {
+        this.deleted = deleted;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(int updated) {
+        this.updated = updated;
+    }
+
+    public int getKept() {
+        return kept;
+    }
+
+    public void setKept(int kept) {
+        this.kept = kept;
+    }
+}
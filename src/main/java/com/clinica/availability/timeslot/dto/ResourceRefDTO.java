@@ -0,0 +1,23 @@
+package com.clinica.availability.timeslot.dto;
+
+public class ResourceRefDTO {
+
+    private String resourceType;
+    private Long resourceId;
+
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    public void setResourceType(String resourceType) {
+        this.resourceType = resourceType;
+    }
+
+    public Long getResourceId() {
+        return resourceId;
+    }
+
+    public void setResourceId(Long resourceId) {
+        this.resourceId = resourceId;
+    }
+}
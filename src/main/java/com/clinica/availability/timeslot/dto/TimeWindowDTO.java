@@ -0,0 +1,28 @@
+package com.clinica.availability.timeslot.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Janela de tempo [startTime, endTime)
+ */
+public class TimeWindowDTO {
+
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+}
@@ -4,13 +4,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 @Repository
 public class HistoricalSlotRepository {
 
+    private static final String BOOKING_COLUMNS =
+        "id, resource_type, resource_id, tenant_id, start_time, status, capacity, booked_count";
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -43,6 +51,39 @@ public class HistoricalSlotRepository {
         return slots;
     }
 
+    /**
+     * Intervalos livres de um recurso em [from, to), mesclando slots disponíveis contíguos.
+     * As linhas chegam ordenadas pelo índice (resource_type, resource_id, status, start_time)
+     * e são mescladas durante a leitura, sem materializar os slots.
+     */
+    public List<LocalDateTime[]> findMergedAvailableIntervals(
+            String resourceType, Long resourceId, LocalDateTime from, LocalDateTime to) {
+
+        List<LocalDateTime[]> intervals = new ArrayList<>();
+
+        jdbcTemplate.query(
+            "SELECT start_time, end_time FROM time_slot " +
+            "WHERE resource_type = ? AND resource_id = ? AND status = 'AVAILABLE' " +
+            "AND start_time >= ? AND start_time < ? " +
+            "ORDER BY start_time",
+            rs -> {
+                LocalDateTime start = rs.getTimestamp("start_time").toLocalDateTime();
+                LocalDateTime end = rs.getTimestamp("end_time").toLocalDateTime();
+
+                LocalDateTime[] last = intervals.isEmpty() ? null : intervals.get(intervals.size() - 1);
+                if (last != null && !start.isAfter(last[1])) {
+                    if (end.isAfter(last[1])) {
+                        last[1] = end; // Slot contíguo ou sobreposto: estender o intervalo atual
+                    }
+                } else {
+                    intervals.add(new LocalDateTime[] {start, end});
+                }
+            },
+            resourceType, resourceId, from, to);
+
+        return intervals;
+    }
+
     /**
      * Busca um slot pelo ID (considerando histórico)
      */
@@ -105,6 +146,151 @@ public class HistoricalSlotRepository {
         return rowsAffected > 0;
     }
 
+    /**
+     * Verifica se o slot existe na tabela principal e está livre
+     */
+    public boolean isSlotAvailable(Long slotId) {
+        Integer count = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM time_slot WHERE id = ? AND status = 'AVAILABLE'", Integer.class, slotId);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Reserva o slot com um único UPDATE condicional (compare-and-set): só altera a linha se ela
+     * ainda estiver AVAILABLE e, no modo capacidade, com vaga. Slots comuns passam a BOOKED com o
+     * agendamento; slots com capacidade incrementam booked_count e viram BOOKED ao lotar.
+     * Só a tabela principal é reservável (o arquivo guarda slots passados, alterados apenas por
+     * updateHistoricalSlotStatus), então quem perde a disputa sai com uma única ida ao banco.
+     */
+    public boolean bookSlot(Long slotId, Long bookingId, String reason, String modifiedBy) {
+        // O SET é avaliado da esquerda para a direita (MySQL): status e booking_id
+        // usam o booked_count anterior ao incremento
+        String sql = "UPDATE time_slot SET " +
+                     "status = CASE WHEN capacity IS NULL OR booked_count + 1 >= capacity " +
+                     "THEN 'BOOKED' ELSE status END, " +
+                     "booking_id = CASE WHEN capacity IS NULL THEN ? ELSE booking_id END, " +
+                     "booked_count = CASE WHEN capacity IS NULL THEN booked_count ELSE booked_count + 1 END, " +
+                     "last_modified_by = ?, modification_reason = ?, updated_at = NOW() " +
+                     "WHERE id = ? AND status = 'AVAILABLE' " +
+                     "AND (capacity IS NULL OR booked_count < capacity)";
+
+        return jdbcTemplate.update(sql, bookingId, modifiedBy, reason, slotId) > 0;
+    }
+
+    /**
+     * Reserva vários slots da tabela principal com um único UPDATE condicional. Retorna quantos
+     * foram reservados; se for menor que a quantidade de IDs, quem chamou deve desfazer a transação.
+     */
+    public int bookSlots(List<Long> slotIds, Long bookingId, String reason, String modifiedBy) {
+        String sql = "UPDATE time_slot SET " +
+                     "status = CASE WHEN capacity IS NULL OR booked_count + 1 >= capacity " +
+                     "THEN 'BOOKED' ELSE status END, " +
+                     "booking_id = CASE WHEN capacity IS NULL THEN ? ELSE booking_id END, " +
+                     "booked_count = CASE WHEN capacity IS NULL THEN booked_count ELSE booked_count + 1 END, " +
+                     "last_modified_by = ?, modification_reason = ?, updated_at = NOW() " +
+                     "WHERE id IN (" + placeholders(slotIds.size()) + ") AND status = 'AVAILABLE' " +
+                     "AND (capacity IS NULL OR booked_count < capacity)";
+
+        List<Object> params = new ArrayList<>(slotIds.size() + 3);
+        params.add(bookingId);
+        params.add(modifiedBy);
+        params.add(reason);
+        params.addAll(slotIds);
+        return jdbcTemplate.update(sql, params.toArray());
+    }
+
+    /**
+     * Dados de auditoria (recurso, tenant, início e estado após a reserva) dos slots da tabela principal
+     */
+    public List<Map<String, Object>> findSlotsByIds(List<Long> slotIds) {
+        return jdbcTemplate.query(
+            "SELECT " + BOOKING_COLUMNS + " FROM time_slot " +
+            "WHERE id IN (" + placeholders(slotIds.size()) + ")",
+            (rs, rowNum) -> mapBookingRow(rs),
+            slotIds.toArray());
+    }
+
+    /**
+     * Dados de auditoria de um slot, lidos na tabela em que ele foi reservado ou liberado
+     */
+    public Map<String, Object> findSlotForBooking(String tableName, Long slotId) {
+        List<Map<String, Object>> slots = jdbcTemplate.query(
+            "SELECT " + BOOKING_COLUMNS + " FROM " + tableName + " WHERE id = ?",
+            (rs, rowNum) -> mapBookingRow(rs),
+            slotId);
+        return slots.isEmpty() ? null : slots.get(0);
+    }
+
+    private static Map<String, Object> mapBookingRow(ResultSet rs) throws SQLException {
+        Map<String, Object> slot = new HashMap<>();
+        slot.put("id", rs.getLong("id"));
+        slot.put("resource_type", rs.getString("resource_type"));
+        slot.put("resource_id", rs.getLong("resource_id"));
+        slot.put("tenant_id", rs.getObject("tenant_id") != null ? rs.getLong("tenant_id") : null);
+        slot.put("start_time", rs.getTimestamp("start_time").toLocalDateTime());
+        slot.put("status", rs.getString("status"));
+        slot.put("capacity", rs.getObject("capacity") != null ? rs.getInt("capacity") : null);
+        slot.put("booked_count", rs.getInt("booked_count"));
+        return slot;
+    }
+
+    /**
+     * Vincula os agendamentos aos slots com capacidade reservados (a linha do slot não guarda
+     * booking_id nesse modo, pois vários agendamentos dividem o mesmo slot)
+     */
+    public void recordCapacityBookings(List<Map<String, Object>> slots, String slotTable, Long bookingId) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Map<String, Object> slot : slots) {
+            if (slot.get("capacity") != null) {
+                rows.add(new Object[] {slot.get("id"), slotTable, bookingId});
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                "INSERT INTO slot_booking (slot_id, slot_table, booking_id, created_at) VALUES (?, ?, ?, NOW())",
+                rows);
+        }
+    }
+
+    /**
+     * Cancela a reserva de um slot comum da tabela principal, desde que ele ainda pertença ao agendamento
+     */
+    public boolean cancelBooking(Long slotId, Long bookingId, String reason, String modifiedBy) {
+        String sql = "UPDATE time_slot SET status = 'AVAILABLE', booking_id = NULL, " +
+                     "last_modified_by = ?, modification_reason = ?, updated_at = NOW() " +
+                     "WHERE id = ? AND capacity IS NULL AND status = 'BOOKED' AND booking_id = ?";
+
+        return jdbcTemplate.update(sql, modifiedBy, reason, slotId, bookingId) > 0;
+    }
+
+    /**
+     * Devolve a vaga de um agendamento em um slot com capacidade da tabela principal: remove o
+     * vínculo e decrementa booked_count; um slot lotado (BOOKED) volta a AVAILABLE. Sem vínculo
+     * do agendamento com o slot nada é alterado. Um vínculo sem vaga a devolver (slot sem
+     * capacidade ou booked_count zerado) lança IllegalStateException, para que a transação
+     * desfaça a remoção do vínculo.
+     */
+    public boolean releaseCapacitySeat(Long slotId, Long bookingId, String reason, String modifiedBy) {
+        int unlinked = jdbcTemplate.update(
+            "DELETE FROM slot_booking WHERE slot_id = ? AND slot_table = 'time_slot' AND booking_id = ? LIMIT 1",
+            slotId, bookingId);
+        if (unlinked == 0) {
+            return false;
+        }
+
+        String sql = "UPDATE time_slot SET " +
+                     "status = CASE WHEN status = 'BOOKED' THEN 'AVAILABLE' ELSE status END, " +
+                     "booked_count = booked_count - 1, " +
+                     "last_modified_by = ?, modification_reason = ?, updated_at = NOW() " +
+                     "WHERE id = ? AND capacity IS NOT NULL AND booked_count > 0";
+
+        if (jdbcTemplate.update(sql, modifiedBy, reason, slotId) == 0) {
+            throw new IllegalStateException(
+                "Booking " + bookingId + " is linked to slot " + slotId + " but the slot has no seat to release");
+        }
+        return true;
+    }
+
     /**
      * Determina em qual tabela o slot está armazenado
      */
@@ -154,6 +340,32 @@ public class HistoricalSlotRepository {
                             resourceType, resourceId, tenantId, slotDate.toLocalDate());
     }
 
+    /**
+     * Registra em um único lote a reserva ou liberação de vários slots (ver findSlotsByIds). O
+     * status final vem de cada linha: um slot com capacidade continua AVAILABLE até lotar.
+     */
+    public void logRetroactiveChanges(
+            List<Map<String, Object>> slots, String slotTable, String modifiedBy,
+            String fromStatus, String reason) {
+
+        String sql = "INSERT INTO retroactive_change_log (slot_id, slot_table, modified_by, " +
+                     "from_status, to_status, reason, resource_type, resource_id, tenant_id, slot_date) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        List<Object[]> rows = new ArrayList<>(slots.size());
+        for (Map<String, Object> slot : slots) {
+            rows.add(new Object[] {
+                slot.get("id"), slotTable, modifiedBy, fromStatus, slot.get("status"), reason,
+                slot.get("resource_type"), slot.get("resource_id"), slot.get("tenant_id"),
+                ((LocalDateTime) slot.get("start_time")).toLocalDate()});
+        }
+        jdbcTemplate.batchUpdate(sql, rows);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
     /**
      * Verifica se uma tabela existe no banco de dados
      */
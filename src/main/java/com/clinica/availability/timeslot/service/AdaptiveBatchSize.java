@@ -0,0 +1,40 @@
+package com.clinica.availability.timeslot.service;
+
+/**
+ * Tamanho de lote ajustado pela latência medida de cada gravação: dobra enquanto lotes
+ * cheios gravam em menos da metade do tempo alvo e cai pela metade quando passam do alvo.
+ * Compartilhado entre threads; corridas na atualização só atrasam o ajuste.
+ */
+final class AdaptiveBatchSize {
+
+    private final int min;
+    private final int max;
+    private final long targetNanos;
+    private volatile int current;
+
+    AdaptiveBatchSize(int initial, int min, int max, long targetMillis) {
+        if (min <= 0 || max < min) {
+            throw new IllegalArgumentException("Invalid batch size bounds: " + min + ".." + max);
+        }
+        this.min = min;
+        this.max = max;
+        this.targetNanos = targetMillis * 1_000_000L;
+        this.current = Math.max(min, Math.min(max, initial));
+    }
+
+    int current() {
+        return current;
+    }
+
+    /**
+     * Registra a duração da gravação de "rows" linhas e ajusta o próximo tamanho
+     */
+    void record(int rows, long elapsedNanos) {
+        int size = current;
+        if (elapsedNanos > targetNanos && size > min) {
+            current = Math.max(min, size / 2);
+        } else if (elapsedNanos < targetNanos / 2 && rows >= size && size < max) {
+            current = Math.min(max, size * 2);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.clinica.availability.timeslot.service;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Configuração de batch (slot_batch_config) compilada em um molde de dia: início e fim de
+ * cada linha (minutos do dia) e quantas posições paralelas ela tem. O molde é calculado uma
+ * vez e carimbado nas datas do dia da semana, que são visitadas de sete em sete dias.
+ */
+final class BatchDayTemplate {
+
+    private final int weekday; // 0 = Domingo, 6 = Sábado
+    private final int[] rowStarts;
+    private final int[] rowEnds;
+    private final int[] rowPositions;
+
+    private BatchDayTemplate(int weekday, int[] rowStarts, int[] rowEnds, int[] rowPositions) {
+        this.weekday = weekday;
+        this.rowStarts = rowStarts;
+        this.rowEnds = rowEnds;
+        this.rowPositions = rowPositions;
+    }
+
+    /**
+     * Compila uma linha de slot_batch_config
+     */
+    static BatchDayTemplate compile(Map<String, Object> config) {
+        int weekday = (Integer) config.get("weekday");
+        int totalSlots = (Integer) config.get("total_slots");
+        int parallelCapacity = (Integer) config.get("parallel_capacity");
+        int avgDuration = (Integer) config.get("avg_duration");
+        int startMinute = SlotGenerationService.minuteOfDay(((java.sql.Time) config.get("start_time")).toLocalTime());
+        int endMinute = SlotGenerationService.minuteOfDay(((java.sql.Time) config.get("end_time")).toLocalTime());
+
+        // Calcular número de linhas (rows)
+        int rows = (int) Math.ceil((double) totalSlots / parallelCapacity);
+
+        // Calcular intervalo entre slots a partir da duração total disponível
+        int totalMinutes = endMinute - startMinute;
+        int slotInterval = Math.max(totalMinutes / rows, avgDuration);
+
+        int[] rowStarts = new int[rows];
+        int[] rowEnds = new int[rows];
+        int[] rowPositions = new int[rows];
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            int rowStart = startMinute + row * slotInterval;
+            if (rowStart >= endMinute) {
+                break; // Passou do horário final
+            }
+            rowStarts[count] = rowStart;
+            rowEnds[count] = Math.min(rowStart + avgDuration, endMinute);
+            rowPositions[count] = Math.min(parallelCapacity, totalSlots - row * parallelCapacity);
+            count++;
+        }
+
+        return new BatchDayTemplate(weekday,
+            Arrays.copyOf(rowStarts, count), Arrays.copyOf(rowEnds, count), Arrays.copyOf(rowPositions, count));
+    }
+
+    /**
+     * Carimba o molde em cada data do período que cai no dia da semana da configuração
+     */
+    void stamp(LocalDate startDate, LocalDate endDate, SlotSink sink) {
+        int startWeekday = startDate.getDayOfWeek().getValue() % 7;
+        long lastDay = endDate.toEpochDay();
+
+        for (long day = startDate.toEpochDay() + Math.floorMod(weekday - startWeekday, 7); day <= lastDay; day += 7) {
+            long dayStartMinute = day * SlotGenerationService.MINUTES_PER_DAY;
+
+            for (int row = 0; row < rowStarts.length; row++) {
+                long rowStart = dayStartMinute + rowStarts[row];
+                long rowEnd = dayStartMinute + rowEnds[row];
+                for (int pos = 1; pos <= rowPositions[row]; pos++) {
+                    sink.accept(rowStart, rowEnd, row + 1, pos);
+                }
+            }
+        }
+    }
+}
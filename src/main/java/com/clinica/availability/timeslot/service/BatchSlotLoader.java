@@ -0,0 +1,37 @@
+package com.clinica.availability.timeslot.service;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Lote JDBC com um INSERT de uma linha por slot; o setter lê direto dos arrays do buffer
+ */
+final class BatchSlotLoader implements SlotBulkLoader {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO time_slot (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    BatchSlotLoader(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void load(SlotBuffer buffer) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                SlotBulkLoader.bindRow(ps, 0, buffer, i);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return buffer.size();
+            }
+        });
+    }
+}
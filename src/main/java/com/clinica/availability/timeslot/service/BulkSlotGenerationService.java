@@ -0,0 +1,127 @@
+package com.clinica.availability.timeslot.service;
+
+import com.clinica.availability.timeslot.dto.BulkGenerationReportDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Geração de slots para todos os recursos de um tenant (ou tipo de recurso) em paralelo.
+ * Cada recurso roda na sua própria transação, via SlotGenerationService, em um pool
+ * limitado por availability.generation.concurrency.
+ */
+@Service
+public class BulkSlotGenerationService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SlotGenerationService slotGenerationService;
+
+    @Value("${availability.generation.concurrency:4}")
+    private int concurrency;
+
+    /**
+     * Gera slots no período para cada recurso associado a um padrão ativo
+     */
+    public BulkGenerationReportDTO generateForTenant(
+            Long tenantId, String resourceType, LocalDate startDate, LocalDate endDate) {
+
+        if (tenantId == null && resourceType == null) {
+            throw new IllegalArgumentException("Bulk generation needs a tenantId or a resourceType");
+        }
+
+        long started = System.currentTimeMillis();
+
+        // 1. Buscar recursos com associações vigentes no período
+        List<Map<String, Object>> resources = findAssociatedResources(tenantId, resourceType, startDate, endDate);
+
+        BulkGenerationReportDTO report = new BulkGenerationReportDTO();
+        if (resources.isEmpty()) {
+            report.setDurationMillis(System.currentTimeMillis() - started);
+            return report;
+        }
+
+        // 2. Submeter um trabalho por recurso ao pool limitado
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, resources.size()));
+        List<Future<Integer>> futures = new ArrayList<>(resources.size());
+        try {
+            for (Map<String, Object> resource : resources) {
+                // tenant_id pode ser NULL (recursos sem tenant): repassado como null até o INSERT
+                futures.add(executor.submit(() -> slotGenerationService.generateSlotsForResource(
+                    (String) resource.get("resource_type"),
+                    toLong(resource.get("resource_id")),
+                    startDate, endDate,
+                    toLong(resource.get("tenant_id")))));
+            }
+
+            // 3. Agregar resultados; a falha de um recurso não interrompe os demais
+            for (int i = 0; i < futures.size(); i++) {
+                Map<String, Object> resource = resources.get(i);
+                try {
+                    report.setSlotsGenerated(report.getSlotsGenerated() + futures.get(i).get());
+                    report.setResourcesProcessed(report.getResourcesProcessed() + 1);
+                } catch (ExecutionException e) {
+                    report.setResourcesFailed(report.getResourcesFailed() + 1);
+                    report.getFailures().put(
+                        resource.get("resource_type") + ":" + resource.get("resource_id"),
+                        String.valueOf(e.getCause().getMessage()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+        } finally {
+            executor.shutdown();
+        }
+
+        report.setDurationMillis(System.currentTimeMillis() - started);
+        return report;
+    }
+
+    /**
+     * Converte um identificador lido por queryForList (BIGINT ou INT conforme o driver), mantendo NULL
+     */
+    static Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+
+    /**
+     * Recursos distintos com padrão associado que cruza o período
+     */
+    List<Map<String, Object>> findAssociatedResources(
+            Long tenantId, String resourceType, LocalDate startDate, LocalDate endDate) {
+
+        StringBuilder query = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+
+        query.append("SELECT DISTINCT resource_type, resource_id, tenant_id FROM resource_availability ")
+             .append("WHERE start_date <= ? AND (end_date IS NULL OR end_date >= ?) ");
+        params.add(endDate);
+        params.add(startDate);
+
+        if (tenantId != null) {
+            query.append("AND tenant_id = ? ");
+            params.add(tenantId);
+        }
+        if (resourceType != null) {
+            query.append("AND resource_type = ? ");
+            params.add(resourceType);
+        }
+
+        query.append("ORDER BY resource_type, resource_id");
+
+        return jdbcTemplate.queryForList(query.toString(), params.toArray());
+    }
+}
@@ -0,0 +1,125 @@
+package com.clinica.availability.timeslot.service;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Statement;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Grava o buffer em um CSV temporário e o carrega de uma vez no banco: LOAD DATA LOCAL INFILE
+ * no MySQL (exige allowLoadLocalInfile=true na URL e local_infile no servidor) ou CSVREAD no H2.
+ * Indicado para execuções muito grandes, em que o custo por statement domina.
+ */
+final class CsvSlotLoader implements SlotBulkLoader {
+
+    private static final String NULL = "\\N";
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    CsvSlotLoader(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void load(SlotBuffer buffer) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            String product = connection.getMetaData().getDatabaseProductName();
+            boolean mysql = product.toLowerCase().contains("mysql") || product.toLowerCase().contains("mariadb");
+            if (!mysql && !"H2".equalsIgnoreCase(product)) {
+                throw new IllegalStateException("CSV bulk load is not supported for " + product);
+            }
+
+            Path file = writeCsv(buffer, mysql);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(mysql ? loadDataSql(file) : csvReadSql(file));
+            } finally {
+                deleteQuietly(file);
+            }
+            return null;
+        });
+    }
+
+    private static String loadDataSql(Path file) {
+        String path = file.toAbsolutePath().toString().replace("\\", "\\\\").replace("'", "\\'");
+        return "LOAD DATA LOCAL INFILE '" + path + "' INTO TABLE time_slot " +
+               "CHARACTER SET utf8mb4 " +
+               "FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY '\\\\' " +
+               "LINES TERMINATED BY '\\n' IGNORE 1 LINES (" + COLUMNS + ")";
+    }
+
+    private static String csvReadSql(Path file) {
+        String path = file.toAbsolutePath().toString().replace("'", "''");
+        return "INSERT INTO time_slot (" + COLUMNS + ") " +
+               "SELECT * FROM CSVREAD('" + path + "', NULL, 'charset=UTF-8 nullString=\\\\N')"; // \\ = barra escapada nas opções do H2
+    }
+
+    /**
+     * Uma linha por slot, com cabeçalho; textos entre aspas e NULL como \N
+     */
+    private static Path writeCsv(SlotBuffer buffer, boolean escapeBackslash) {
+        try {
+            Path file = Files.createTempFile("time_slot_", ".csv");
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write(COLUMNS.replace(" ", ""));
+                writer.write('\n');
+
+                String resourceType = quote(buffer.getResourceType(), escapeBackslash);
+                for (int i = 0; i < buffer.size(); i++) {
+                    writer.write(resourceType);
+                    writer.write(',');
+                    writer.write(Long.toString(buffer.getResourceId()));
+                    writer.write(',');
+                    writer.write(TIMESTAMP.format(SlotBuffer.toLocalDateTime(buffer.getStartMinute(i))));
+                    writer.write(',');
+                    writer.write(TIMESTAMP.format(SlotBuffer.toLocalDateTime(buffer.getEndMinute(i))));
+                    writer.write(',');
+                    writer.write(buffer.getStatus(i));
+                    writer.write(',');
+                    writer.write(buffer.getTenantId() == null ? NULL : Long.toString(buffer.getTenantId()));
+                    writer.write(',');
+                    if (buffer.getBatchRow(i) == 0) {
+                        writer.write(NULL);
+                        writer.write(',');
+                        writer.write(NULL);
+                    } else {
+                        writer.write(Integer.toString(buffer.getBatchRow(i)));
+                        writer.write(',');
+                        writer.write(Integer.toString(buffer.getBatchPosition(i)));
+                    }
+                    writer.write(',');
+                    writer.write(quote(buffer.getBlockingReason(i), escapeBackslash));
+                    writer.write(',');
+                    writer.write(buffer.getCapacity(i) == 0 ? NULL : Integer.toString(buffer.getCapacity(i)));
+                    writer.write('\n');
+                }
+            }
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write slot CSV", e);
+        }
+    }
+
+    private static String quote(String value, boolean escapeBackslash) {
+        if (value == null) {
+            return NULL;
+        }
+        String escaped = escapeBackslash ? value.replace("\\", "\\\\") : value;
+        return '"' + escaped.replace("\"", "\"\"") + '"';
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            file.toFile().deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.clinica.availability.timeslot.service;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Exceções de bloqueio de um recurso, carregadas uma vez por geração e ordenadas pelo início
+ * (minutos desde a época). Guarda o maior fim acumulado para achar as exceções que tocam um
+ * slot com busca binária, sem consultar o banco por slot.
+ */
+final class ExceptionBlocks {
+
+    /**
+     * O que fazer com slots que se sobrepõem só em parte a uma exceção
+     */
+    enum PartialOverlapPolicy {
+        /** Bloqueia o slot, como se a exceção o cobrisse inteiro */
+        BLOCK,
+        /** Mantém o slot disponível; só slots totalmente cobertos são bloqueados */
+        KEEP_AVAILABLE
+    }
+
+    private static final ExceptionBlocks NONE = new ExceptionBlocks(
+            new long[0], new long[0], new long[0], new String[0], PartialOverlapPolicy.KEEP_AVAILABLE);
+
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnds; // maior fim entre as exceções 0..i
+    private final String[] reasons;
+    private final PartialOverlapPolicy policy;
+
+    private ExceptionBlocks(long[] starts, long[] ends, long[] maxEnds, String[] reasons,
+                            PartialOverlapPolicy policy) {
+        this.starts = starts;
+        this.ends = ends;
+        this.maxEnds = maxEnds;
+        this.reasons = reasons;
+        this.policy = policy;
+    }
+
+    static ExceptionBlocks none() {
+        return NONE;
+    }
+
+    /**
+     * Monta a estrutura a partir de intervalos {início, fim} em minutos e seus motivos
+     */
+    static ExceptionBlocks of(List<long[]> intervals, List<String> intervalReasons, PartialOverlapPolicy policy) {
+        int size = intervals.size();
+        if (size == 0) {
+            return NONE;
+        }
+
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> intervals.get(i)[0]));
+
+        long[] starts = new long[size];
+        long[] ends = new long[size];
+        long[] maxEnds = new long[size];
+        String[] reasons = new String[size];
+
+        for (int i = 0; i < size; i++) {
+            long[] interval = intervals.get(order[i]);
+            starts[i] = interval[0];
+            ends[i] = interval[1];
+            reasons[i] = intervalReasons.get(order[i]);
+            maxEnds[i] = i == 0 ? ends[i] : Math.max(maxEnds[i - 1], ends[i]);
+        }
+
+        return new ExceptionBlocks(starts, ends, maxEnds, reasons, policy);
+    }
+
+    boolean isEmpty() {
+        return starts.length == 0;
+    }
+
+    /**
+     * Fim (minutos desde a época) da exceção retornada por find
+     */
+    long getEnd(int index) {
+        return ends[index];
+    }
+
+    /**
+     * Marca como bloqueado o slot do buffer na posição informada, se alguma exceção o atingir
+     */
+    void apply(SlotBuffer buffer, int index) {
+        int exception = find(buffer.getStartMinute(index), buffer.getEndMinute(index));
+        if (exception >= 0) {
+            buffer.block(index, reasons[exception]);
+        }
+    }
+
+    /**
+     * Exceção que bloqueia o slot [start, end), ou -1. Uma exceção que cobre o slot inteiro
+     * tem prioridade; sobreposições parciais seguem a política configurada.
+     */
+    int find(long start, long end) {
+        int partial = -1;
+        for (int i = countStartsBefore(end) - 1; i >= 0 && maxEnds[i] > start; i--) {
+            if (ends[i] <= start) {
+                continue;
+            }
+            if (starts[i] <= start && ends[i] >= end) {
+                return i;
+            }
+            if (partial < 0) {
+                partial = i;
+            }
+        }
+        return policy == PartialOverlapPolicy.BLOCK ? partial : -1;
+    }
+
+    /**
+     * Quantidade de exceções com início estritamente anterior ao valor (busca binária)
+     */
+    private int countStartsBefore(long value) {
+        int low = 0;
+        int high = starts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
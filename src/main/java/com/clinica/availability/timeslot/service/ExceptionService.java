@@ -1,7 +1,10 @@
-package com.clinica.availability.service;
+package com.clinica.availability.timeslot.service;
 
+import com.clinica.availability.event.AvailabilityChangeEvent;
+import com.clinica.availability.event.AvailabilityChangePublisher;
 import com.clinica.availability.model.AvailabilityException;
 import com.clinica.availability.repository.ExceptionRepository;
+import com.clinica.availability.service.AvailabilityIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -14,6 +17,12 @@ public class ExceptionService {
     @Autowired
     private ExceptionRepository exceptionRepository;
 
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private AvailabilityChangePublisher changePublisher;
+
     public List<AvailabilityException> getAllExceptions() {
         return exceptionRepository.findAll();
     }
@@ -23,18 +32,31 @@ public class ExceptionService {
     }
 
     public AvailabilityException createException(AvailabilityException exception) {
-        return exceptionRepository.save(exception);
+        AvailabilityException saved = exceptionRepository.save(exception);
+        availabilityIndex.putException(saved);
+        changePublisher.exceptionChanged(saved);
+        return saved;
     }
 
     public Optional<AvailabilityException> updateException(Long id, AvailabilityException exception) {
         return exceptionRepository.findById(id)
                 .map(existingException -> {
+                    // Evento do estado anterior montado antes do save (merge() sobrescreve a entidade carregada)
+                    AvailabilityChangeEvent previous = changePublisher.exceptionEvent(existingException);
                     exception.setId(id); // Garante que estamos atualizando a exceção correta
-                    return exceptionRepository.save(exception);
+                    AvailabilityException saved = exceptionRepository.save(exception);
+                    availabilityIndex.putException(saved);
+                    changePublisher.publish(previous);
+                    changePublisher.exceptionChanged(saved);
+                    return saved;
                 });
     }
 
     public void deleteException(Long id) {
-        exceptionRepository.deleteById(id);
+        // Reaproveita a entidade carregada: delete(entity) não a busca de novo
+        Optional<AvailabilityException> existing = exceptionRepository.findById(id);
+        existing.ifPresent(exceptionRepository::delete);
+        availabilityIndex.removeException(id);
+        existing.ifPresent(changePublisher::exceptionChanged);
     }
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.clinica.availability.timeslot.service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds em um mapa do processo, com expiração verificada na leitura. Mesmo contrato do
+ * armazenamento Redis, para testes e ambientes de um único nó.
+ */
+final class InMemorySlotHoldStore implements SlotHoldStore {
+
+    private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean tryHold(Long slotId, String token, Duration ttl) {
+        long now = System.nanoTime();
+        Hold hold = new Hold(token, now + ttl.toNanos());
+        // compute é atômico por chave: só um token vence enquanto o hold atual não expirou
+        return holds.compute(slotId, (id, current) -> current == null || current.isExpired(now) ? hold : current) == hold;
+    }
+
+    @Override
+    public boolean release(Long slotId, String token) {
+        Hold hold = active(slotId);
+        return hold != null && hold.token.equals(token) && holds.remove(slotId, hold);
+    }
+
+    @Override
+    public String getHolder(Long slotId) {
+        Hold hold = active(slotId);
+        return hold != null ? hold.token : null;
+    }
+
+    @Override
+    public Set<Long> findHeld(Collection<Long> slotIds) {
+        Set<Long> held = new HashSet<>();
+        for (Long slotId : slotIds) {
+            if (active(slotId) != null) {
+                held.add(slotId);
+            }
+        }
+        return held;
+    }
+
+    /**
+     * Hold vigente do slot; um hold expirado é removido
+     */
+    private Hold active(Long slotId) {
+        Hold hold = holds.get(slotId);
+        if (hold != null && hold.isExpired(System.nanoTime())) {
+            holds.remove(slotId, hold);
+            return null;
+        }
+        return hold;
+    }
+
+    private static final class Hold {
+        private final String token;
+        private final long expiresAt; // System.nanoTime()
+
+        private Hold(String token, long expiresAt) {
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
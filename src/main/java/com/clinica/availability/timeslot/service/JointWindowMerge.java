@@ -0,0 +1,64 @@
+package com.clinica.availability.timeslot.service;
+
+import com.clinica.availability.dto.FreeIntervalDTO;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Interseção k-way de listas de intervalos livres ordenados (uma por recurso).
+ * Cada passo compara o intervalo atual de cada lista e avança a que termina primeiro,
+ * então o custo é linear no total de intervalos.
+ */
+final class JointWindowMerge {
+
+    private JointWindowMerge() {
+    }
+
+    /**
+     * Primeiras "limit" janelas comuns a todas as listas com pelo menos a duração exigida
+     */
+    static List<FreeIntervalDTO> intersect(List<List<LocalDateTime[]>> perResource, Duration duration, int limit) {
+        List<FreeIntervalDTO> windows = new ArrayList<>();
+        if (perResource.isEmpty()) {
+            return windows;
+        }
+
+        int k = perResource.size();
+        int[] cursor = new int[k];
+
+        while (windows.size() < limit) {
+            LocalDateTime latestStart = null;
+            LocalDateTime earliestEnd = null;
+            int earliestEndOwner = -1;
+
+            // 1. Janela candidata: maior início e menor fim entre os intervalos atuais
+            for (int r = 0; r < k; r++) {
+                List<LocalDateTime[]> intervals = perResource.get(r);
+                if (cursor[r] >= intervals.size()) {
+                    return windows; // Algum recurso não tem mais intervalos livres
+                }
+                LocalDateTime[] current = intervals.get(cursor[r]);
+                if (latestStart == null || current[0].isAfter(latestStart)) {
+                    latestStart = current[0];
+                }
+                if (earliestEnd == null || current[1].isBefore(earliestEnd)) {
+                    earliestEnd = current[1];
+                    earliestEndOwner = r;
+                }
+            }
+
+            // 2. Emitir se a sobreposição comporta a duração
+            if (!latestStart.plus(duration).isAfter(earliestEnd)) {
+                windows.add(new FreeIntervalDTO(latestStart, earliestEnd));
+            }
+
+            // 3. Avançar o recurso cujo intervalo termina primeiro
+            cursor[earliestEndOwner]++;
+        }
+
+        return windows;
+    }
+}
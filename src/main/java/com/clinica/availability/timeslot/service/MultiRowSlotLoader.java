@@ -0,0 +1,43 @@
+package com.clinica.availability.timeslot.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * INSERTs com até ROWS_PER_STATEMENT linhas em VALUES. O limite mantém o número de
+ * parâmetros bem abaixo do máximo do MySQL (65535 por statement).
+ */
+final class MultiRowSlotLoader implements SlotBulkLoader {
+
+    static final int ROWS_PER_STATEMENT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String fullStatement = insertSql(ROWS_PER_STATEMENT);
+
+    MultiRowSlotLoader(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void load(SlotBuffer buffer) {
+        for (int from = 0; from < buffer.size(); from += ROWS_PER_STATEMENT) {
+            int first = from;
+            int rows = Math.min(ROWS_PER_STATEMENT, buffer.size() - from);
+            String sql = rows == ROWS_PER_STATEMENT ? fullStatement : insertSql(rows);
+
+            jdbcTemplate.update(sql, ps -> {
+                for (int i = 0; i < rows; i++) {
+                    SlotBulkLoader.bindRow(ps, i * COLUMN_COUNT, buffer, first + i);
+                }
+            });
+        }
+    }
+
+    private static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder(64 + rows * 20);
+        sql.append("INSERT INTO time_slot (").append(COLUMNS).append(") VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        }
+        return sql.toString();
+    }
+}
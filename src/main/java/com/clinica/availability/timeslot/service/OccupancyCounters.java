@@ -0,0 +1,72 @@
+package com.clinica.availability.timeslot.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contadores de ocupação por hora acumulados durante a geração, na mesma unidade do
+ * sumário (capacidade do slot, ou 1 por linha). Guarda só variações: slots removidos
+ * entram com sinal negativo, então o resultado é somado às linhas existentes do sumário.
+ */
+final class OccupancyCounters {
+
+    private static final int HOURS_PER_DAY = 24;
+
+    private final long firstHour; // horas desde a época (UTC, como SlotBuffer)
+    private final int[] total;
+    private final int[] available;
+    private final int[] blocked;
+
+    OccupancyCounters(LocalDate startDate, LocalDate endDate) {
+        int hours = (int) (endDate.toEpochDay() - startDate.toEpochDay() + 1) * HOURS_PER_DAY;
+        this.firstHour = startDate.toEpochDay() * HOURS_PER_DAY;
+        this.total = new int[hours];
+        this.available = new int[hours];
+        this.blocked = new int[hours];
+    }
+
+    /**
+     * Soma (sign = 1) ou subtrai (sign = -1) um slot ainda não reservado
+     */
+    void add(long startMinute, boolean isBlocked, int capacity, int sign) {
+        int hour = (int) (Math.floorDiv(startMinute, 60) - firstHour);
+        if (hour < 0 || hour >= total.length) {
+            throw new IllegalStateException("Slot outside of the summarized period: " + startMinute);
+        }
+        int units = (capacity == 0 ? 1 : capacity) * sign;
+        total[hour] += units;
+        if (isBlocked) {
+            blocked[hour] += units;
+        } else {
+            available[hour] += units;
+        }
+    }
+
+    /**
+     * Soma todos os slots do buffer (chamado antes de o buffer ser esvaziado)
+     */
+    void addAll(SlotBuffer buffer) {
+        for (int i = 0; i < buffer.size(); i++) {
+            add(buffer.getStartMinute(i), buffer.isBlocked(i), buffer.getCapacity(i), 1);
+        }
+    }
+
+    /**
+     * Linhas com variação: {data, hora, total, disponíveis, bloqueados}
+     */
+    List<Object[]> changedHours() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int hour = 0; hour < total.length; hour++) {
+            if (total[hour] == 0 && available[hour] == 0 && blocked[hour] == 0) {
+                continue;
+            }
+            long epochHour = firstHour + hour;
+            rows.add(new Object[] {
+                LocalDate.ofEpochDay(Math.floorDiv(epochHour, HOURS_PER_DAY)),
+                Math.floorMod(epochHour, HOURS_PER_DAY),
+                total[hour], available[hour], blocked[hour]});
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,72 @@
+package com.clinica.availability.timeslot.service;
+
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Holds como chaves "slotHold:{id}" criadas com SET NX e TTL: o Redis garante que só um
+ * token vence e remove a chave ao expirar
+ */
+final class RedisSlotHoldStore implements SlotHoldStore {
+
+    private static final String KEY_PREFIX = "slotHold:";
+
+    // Remove a chave só se o valor ainda for o token (GET + DEL atômicos)
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+        Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    RedisSlotHoldStore(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public boolean tryHold(Long slotId, String token, Duration ttl) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + slotId, token, ttl));
+    }
+
+    @Override
+    public boolean release(Long slotId, String token) {
+        Long removed = redisTemplate.execute(RELEASE, List.of(KEY_PREFIX + slotId), token);
+        return removed != null && removed > 0;
+    }
+
+    @Override
+    public String getHolder(Long slotId) {
+        Object holder = redisTemplate.opsForValue().get(KEY_PREFIX + slotId);
+        return holder != null ? holder.toString() : null;
+    }
+
+    @Override
+    public Set<Long> findHeld(Collection<Long> slotIds) {
+        if (slotIds.isEmpty()) {
+            return Set.of();
+        }
+
+        // Um único MGET para todos os slots
+        List<Long> ids = new ArrayList<>(slotIds);
+        List<String> keys = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            keys.add(KEY_PREFIX + id);
+        }
+        List<Object> holders = redisTemplate.opsForValue().multiGet(keys);
+
+        Set<Long> held = new HashSet<>();
+        for (int i = 0; holders != null && i < ids.size(); i++) {
+            if (holders.get(i) != null) {
+                held.add(ids.get(i));
+            }
+        }
+        return held;
+    }
+}
@@ -0,0 +1,68 @@
+package com.clinica.availability.timeslot.service;
+
+import com.clinica.availability.timeslot.dto.BulkGenerationReportDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mantém os slots gerados até availability.generation.horizon-days à frente.
+ * Cada recurso guarda a marca "gerado até" em slot_generation_watermark; a execução
+ * noturna só gera o dia que entrou no horizonte (ou a lacuna deixada por falhas).
+ */
+@Service
+public class RollingHorizonService {
+
+    @Autowired
+    private BulkSlotGenerationService bulkSlotGenerationService;
+
+    @Autowired
+    private SlotGenerationService slotGenerationService;
+
+    @Value("${availability.generation.horizon-days:56}")
+    private int horizonDays;
+
+    /**
+     * Job noturno que estende o horizonte de todos os recursos
+     */
+    @Scheduled(cron = "${availability.generation.horizon-cron:0 0 2 * * *}")
+    public void extendHorizonNightly() {
+        extendHorizon(LocalDate.now());
+    }
+
+    /**
+     * Estende o horizonte de cada recurso com associação vigente entre hoje e a data alvo
+     */
+    public BulkGenerationReportDTO extendHorizon(LocalDate today) {
+        long started = System.currentTimeMillis();
+        LocalDate until = today.plusDays(horizonDays - 1);
+
+        // 1. Buscar recursos com associações vigentes no horizonte
+        List<Map<String, Object>> resources =
+            bulkSlotGenerationService.findAssociatedResources(null, null, today, until);
+
+        // 2. Estender cada recurso na sua própria transação; a marca de quem falhar não avança
+        BulkGenerationReportDTO report = new BulkGenerationReportDTO();
+        for (Map<String, Object> resource : resources) {
+            String resourceType = (String) resource.get("resource_type");
+            Long resourceId = BulkSlotGenerationService.toLong(resource.get("resource_id"));
+            try {
+                int generated = slotGenerationService.extendHorizon(
+                    resourceType, resourceId, BulkSlotGenerationService.toLong(resource.get("tenant_id")), today, until);
+                report.setSlotsGenerated(report.getSlotsGenerated() + generated);
+                report.setResourcesProcessed(report.getResourcesProcessed() + 1);
+            } catch (RuntimeException e) {
+                report.setResourcesFailed(report.getResourcesFailed() + 1);
+                report.getFailures().put(resourceType + ":" + resourceId, String.valueOf(e.getMessage()));
+            }
+        }
+
+        report.setDurationMillis(System.currentTimeMillis() - started);
+        return report;
+    }
+}
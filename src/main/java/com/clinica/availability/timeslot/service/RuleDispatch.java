@@ -0,0 +1,177 @@
+package com.clinica.availability.timeslot.service;
+
+import com.clinica.availability.model.AvailabilityRule;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Regras de um padrão pré-indexadas para a geração: semanais por dia da semana, mensais
+ * por dia do mês e personalizadas ordenadas pela data inicial. Os inícios dos slots de cada
+ * regra (minutos do dia) são calculados uma vez e carimbados em cada data correspondente.
+ */
+final class RuleDispatch {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final int[][] slotStarts;   // por regra: inícios dos slots no dia
+    private final int[] durations;
+    private final int[] maxSlots;
+    private final int[][] byWeekday;    // 0 = domingo .. 6 = sábado -> regras
+    private final int[][] byDayOfMonth; // 1..31 -> regras
+    private final int[] customRules;    // personalizadas, ordenadas pela data inicial
+    private final long[] customStarts;  // epochDay inicial de cada personalizada
+    private final long[] customEnds;    // epochDay final (inclusivo)
+
+    private RuleDispatch(int[][] slotStarts, int[] durations, int[] maxSlots,
+                         int[][] byWeekday, int[][] byDayOfMonth,
+                         int[] customRules, long[] customStarts, long[] customEnds) {
+        this.slotStarts = slotStarts;
+        this.durations = durations;
+        this.maxSlots = maxSlots;
+        this.byWeekday = byWeekday;
+        this.byDayOfMonth = byDayOfMonth;
+        this.customRules = customRules;
+        this.customStarts = customStarts;
+        this.customEnds = customEnds;
+    }
+
+    static RuleDispatch of(List<AvailabilityRule> rules) {
+        int count = rules.size();
+        int[][] slotStarts = new int[count][];
+        int[] durations = new int[count];
+        int[] maxSlots = new int[count];
+        List<List<Integer>> weekly = buckets(7);
+        List<List<Integer>> monthly = buckets(32);
+        List<Integer> custom = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            AvailabilityRule rule = rules.get(i);
+            durations[i] = rule.getSlotDuration();
+            maxSlots[i] = rule.getMaxSlots();
+            slotStarts[i] = slotStarts(SlotGenerationService.minuteOfDay(rule.getStartTime()),
+                                       SlotGenerationService.minuteOfDay(rule.getEndTime()), durations[i]);
+
+            if (rule.getRuleType() == AvailabilityRule.RuleType.WEEKLY) {
+                int weekday = rule.getWeekday();
+                if (weekday >= 0 && weekday < 7) {
+                    weekly.get(weekday).add(i);
+                }
+            } else if (rule.getRuleType() == AvailabilityRule.RuleType.MONTHLY) {
+                int dayOfMonth = rule.getDayOfMonth();
+                if (dayOfMonth >= 1 && dayOfMonth <= 31) {
+                    monthly.get(dayOfMonth).add(i);
+                }
+            } else if (rule.getRuleType() == AvailabilityRule.RuleType.CUSTOM) {
+                custom.add(i);
+            }
+        }
+
+        // Personalizadas ordenadas pelo início (ordenação estável mantém a ordem das regras)
+        custom.sort(Comparator.comparingLong(i -> startEpochDay(rules.get(i))));
+        int[] customRules = new int[custom.size()];
+        long[] customStarts = new long[custom.size()];
+        long[] customEnds = new long[custom.size()];
+        for (int c = 0; c < customRules.length; c++) {
+            AvailabilityRule rule = rules.get(custom.get(c));
+            customRules[c] = custom.get(c);
+            customStarts[c] = startEpochDay(rule);
+            customEnds[c] = rule.getEndDate() == null ? Long.MAX_VALUE : rule.getEndDate().toEpochDay();
+        }
+
+        return new RuleDispatch(slotStarts, durations, maxSlots,
+            toArrays(weekly), toArrays(monthly), customRules, customStarts, customEnds);
+    }
+
+    /**
+     * Gera os slots das regras que se aplicam a cada dia do período
+     */
+    void generate(LocalDate startDate, LocalDate endDate, SlotSink sink) {
+        long firstDay = startDate.toEpochDay();
+        long lastDay = endDate.toEpochDay();
+
+        // Personalizadas já iniciadas e ainda vigentes, na ordem de início
+        int[] active = new int[customRules.length];
+        int activeCount = 0;
+        int nextCustom = 0;
+
+        LocalDate date = startDate;
+        int dayOfWeek = startDate.getDayOfWeek().getValue() % 7; // 0 = Domingo, 6 = Sábado
+        for (long day = firstDay; day <= lastDay; day++) {
+            long dayStartMinute = day * SlotGenerationService.MINUTES_PER_DAY;
+
+            // 1. Regras semanais do dia da semana
+            for (int rule : byWeekday[dayOfWeek]) {
+                stamp(rule, dayStartMinute, sink);
+            }
+
+            // 2. Regras mensais do dia do mês
+            for (int rule : byDayOfMonth[date.getDayOfMonth()]) {
+                stamp(rule, dayStartMinute, sink);
+            }
+
+            // 3. Personalizadas: ativar as que começam hoje e descartar as encerradas
+            while (nextCustom < customRules.length && customStarts[nextCustom] <= day) {
+                active[activeCount++] = nextCustom++;
+            }
+            int kept = 0;
+            for (int a = 0; a < activeCount; a++) {
+                int custom = active[a];
+                if (customEnds[custom] >= day) {
+                    stamp(customRules[custom], dayStartMinute, sink);
+                    active[kept++] = custom;
+                }
+            }
+            activeCount = kept;
+
+            date = date.plusDays(1);
+            dayOfWeek = dayOfWeek == 6 ? 0 : dayOfWeek + 1;
+        }
+    }
+
+    /**
+     * Carimba os slots pré-calculados da regra no dia; max_slots vira a capacidade da janela
+     */
+    private void stamp(int rule, long dayStartMinute, SlotSink sink) {
+        int duration = durations[rule];
+        int capacity = maxSlots[rule];
+        for (int start : slotStarts[rule]) {
+            long slotStart = dayStartMinute + start;
+            sink.accept(slotStart, slotStart + duration, 0, 0, capacity);
+        }
+    }
+
+    private static int[] slotStarts(int startMinute, int endMinute, int duration) {
+        if (duration <= 0 || endMinute - startMinute < duration) {
+            return EMPTY;
+        }
+        int[] starts = new int[(endMinute - startMinute) / duration];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = startMinute + i * duration;
+        }
+        return starts;
+    }
+
+    private static long startEpochDay(AvailabilityRule rule) {
+        return rule.getStartDate() == null ? Long.MIN_VALUE : rule.getStartDate().toEpochDay();
+    }
+
+    private static List<List<Integer>> buckets(int size) {
+        List<List<Integer>> buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        return buckets;
+    }
+
+    private static int[][] toArrays(List<List<Integer>> buckets) {
+        int[][] arrays = new int[buckets.size()][];
+        for (int i = 0; i < arrays.length; i++) {
+            List<Integer> bucket = buckets.get(i);
+            arrays[i] = bucket.isEmpty() ? EMPTY : bucket.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return arrays;
+    }
+}
@@ -0,0 +1,235 @@
+package com.clinica.availability.timeslot.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Buffer colunar de slots gerados: arrays primitivos paralelos para início/fim (minutos
+ * desde a época), linha/posição de batch, capacidade e bloqueio por exceção. Recurso e tenant são
+ * guardados uma vez por buffer, então acrescentar um slot não aloca nada. Quando cheio, o buffer cresce;
+ * quem grava em lotes esvazia o buffer antes disso (ver isFull).
+ */
+final class SlotBuffer implements SlotSink {
+
+    static final String STATUS = "AVAILABLE";
+    static final String BLOCKED_STATUS = "BLOCKED";
+
+    private final String resourceType;
+    private final long resourceId;
+    private final Long tenantId; // null = recurso sem tenant
+
+    private long[] startMinutes;
+    private long[] endMinutes;
+    private int[] batchRows;      // 0 = sem batch
+    private int[] batchPositions; // 0 = sem batch
+    private int[] capacities;     // 0 = slot de uma linha por atendimento
+    private boolean[] blocked;
+    private String[] blockingReasons;
+    private int size;
+
+    SlotBuffer(String resourceType, long resourceId, Long tenantId, int capacity) {
+        this.resourceType = resourceType;
+        this.resourceId = resourceId;
+        this.tenantId = tenantId;
+        this.startMinutes = new long[capacity];
+        this.endMinutes = new long[capacity];
+        this.batchRows = new int[capacity];
+        this.batchPositions = new int[capacity];
+        this.capacities = new int[capacity];
+        this.blocked = new boolean[capacity];
+        this.blockingReasons = new String[capacity];
+    }
+
+    @Override
+    public void accept(long startMinute, long endMinute, int batchRow, int batchPosition) {
+        acceptWithCapacity(startMinute, endMinute, batchRow, batchPosition, 0);
+    }
+
+    /**
+     * Acrescenta uma linha única que comporta "capacity" atendimentos (modo capacidade)
+     */
+    void acceptWithCapacity(long startMinute, long endMinute, int batchRow, int batchPosition, int capacity) {
+        if (size == startMinutes.length) {
+            grow();
+        }
+        startMinutes[size] = startMinute;
+        endMinutes[size] = endMinute;
+        batchRows[size] = batchRow;
+        batchPositions[size] = batchPosition;
+        capacities[size] = capacity;
+        blocked[size] = false;
+        blockingReasons[size] = null;
+        size++;
+    }
+
+    boolean isFull() {
+        return size == startMinutes.length;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    String getResourceType() {
+        return resourceType;
+    }
+
+    long getResourceId() {
+        return resourceId;
+    }
+
+    Long getTenantId() {
+        return tenantId;
+    }
+
+    long getStartMinute(int index) {
+        return startMinutes[index];
+    }
+
+    long getEndMinute(int index) {
+        return endMinutes[index];
+    }
+
+    int getBatchRow(int index) {
+        return batchRows[index];
+    }
+
+    int getBatchPosition(int index) {
+        return batchPositions[index];
+    }
+
+    int getCapacity(int index) {
+        return capacities[index];
+    }
+
+    /**
+     * Marca o slot como bloqueado por uma exceção
+     */
+    void block(int index, String reason) {
+        blocked[index] = true;
+        blockingReasons[index] = reason;
+    }
+
+    boolean isBlocked(int index) {
+        return blocked[index];
+    }
+
+    String getStatus(int index) {
+        return blocked[index] ? BLOCKED_STATUS : STATUS;
+    }
+
+    String getBlockingReason(int index) {
+        return blockingReasons[index];
+    }
+
+    /**
+     * Compara dois slots pela chave (início, fim, linha, posição)
+     */
+    int compare(int a, int b) {
+        int result = Long.compare(startMinutes[a], startMinutes[b]);
+        if (result == 0) {
+            result = Long.compare(endMinutes[a], endMinutes[b]);
+        }
+        if (result == 0) {
+            result = Integer.compare(batchRows[a], batchRows[b]);
+        }
+        if (result == 0) {
+            result = Integer.compare(batchPositions[a], batchPositions[b]);
+        }
+        return result;
+    }
+
+    /**
+     * Compara o slot do buffer com uma chave externa (ex.: linha já gravada)
+     */
+    int compareTo(int index, long startMinute, long endMinute, int batchRow, int batchPosition) {
+        int result = Long.compare(startMinutes[index], startMinute);
+        if (result == 0) {
+            result = Long.compare(endMinutes[index], endMinute);
+        }
+        if (result == 0) {
+            result = Integer.compare(batchRows[index], batchRow);
+        }
+        if (result == 0) {
+            result = Integer.compare(batchPositions[index], batchPosition);
+        }
+        return result;
+    }
+
+    /**
+     * Posições dos slots ordenadas pela chave (merge sort estável sobre índices)
+     */
+    int[] sortedOrder() {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        int[] scratch = new int[size];
+        for (int width = 1; width < size; width *= 2) {
+            for (int low = 0; low < size - width; low += 2 * width) {
+                merge(order, scratch, low, low + width, Math.min(low + 2 * width, size));
+            }
+        }
+        return order;
+    }
+
+    Timestamp getStartTimestamp(int index) {
+        return toTimestamp(startMinutes[index]);
+    }
+
+    Timestamp getEndTimestamp(int index) {
+        return toTimestamp(endMinutes[index]);
+    }
+
+    private void merge(int[] order, int[] scratch, int low, int middle, int high) {
+        int left = low;
+        int right = middle;
+        int out = low;
+        while (left < middle && right < high) {
+            scratch[out++] = compare(order[right], order[left]) < 0 ? order[right++] : order[left++];
+        }
+        while (left < middle) {
+            scratch[out++] = order[left++];
+        }
+        while (right < high) {
+            scratch[out++] = order[right++];
+        }
+        System.arraycopy(scratch, low, order, low, high - low);
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, startMinutes.length * 2);
+        startMinutes = Arrays.copyOf(startMinutes, capacity);
+        endMinutes = Arrays.copyOf(endMinutes, capacity);
+        batchRows = Arrays.copyOf(batchRows, capacity);
+        batchPositions = Arrays.copyOf(batchPositions, capacity);
+        capacities = Arrays.copyOf(capacities, capacity);
+        blocked = Arrays.copyOf(blocked, capacity);
+        blockingReasons = Arrays.copyOf(blockingReasons, capacity);
+    }
+
+    /**
+     * Minuto desde a época de um horário local (sem fuso, como os horários gravados em time_slot)
+     */
+    static long toEpochMinute(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    static LocalDateTime toLocalDateTime(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+
+    private static Timestamp toTimestamp(long epochMinute) {
+        return Timestamp.valueOf(toLocalDateTime(epochMinute));
+    }
+}
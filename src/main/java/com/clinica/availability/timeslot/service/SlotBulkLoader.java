@@ -0,0 +1,75 @@
+package com.clinica.availability.timeslot.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Estratégia de gravação em massa dos slots de um buffer na tabela time_slot.
+ * Selecionada por availability.generation.bulk-load.strategy.
+ */
+interface SlotBulkLoader {
+
+    String COLUMNS = "resource_type, resource_id, start_time, end_time, " +
+                     "status, tenant_id, batch_row, batch_position, blocking_reason, capacity";
+    int COLUMN_COUNT = 10;
+
+    /**
+     * Grava todos os slots do buffer (sem limpá-lo)
+     */
+    void load(SlotBuffer buffer);
+
+    enum Strategy {
+        /**
+         * Lote JDBC de INSERTs de uma linha. Com rewriteBatchedStatements=true na URL
+         * do MySQL o driver reescreve o lote em INSERTs de várias linhas.
+         */
+        BATCH,
+        /** INSERTs com várias linhas em VALUES montados pela aplicação */
+        MULTI_ROW,
+        /** Arquivo CSV temporário carregado com LOAD DATA (MySQL) ou CSVREAD (H2) */
+        CSV
+    }
+
+    static SlotBulkLoader create(Strategy strategy, JdbcTemplate jdbcTemplate) {
+        switch (strategy) {
+            case MULTI_ROW:
+                return new MultiRowSlotLoader(jdbcTemplate);
+            case CSV:
+                return new CsvSlotLoader(jdbcTemplate);
+            default:
+                return new BatchSlotLoader(jdbcTemplate);
+        }
+    }
+
+    /**
+     * Preenche os parâmetros de uma linha a partir da posição "offset" (base 0)
+     */
+    static void bindRow(PreparedStatement ps, int offset, SlotBuffer buffer, int index) throws SQLException {
+        ps.setString(offset + 1, buffer.getResourceType());
+        ps.setLong(offset + 2, buffer.getResourceId());
+        ps.setTimestamp(offset + 3, buffer.getStartTimestamp(index));
+        ps.setTimestamp(offset + 4, buffer.getEndTimestamp(index));
+        ps.setString(offset + 5, buffer.getStatus(index));
+        if (buffer.getTenantId() == null) {
+            ps.setNull(offset + 6, Types.BIGINT);
+        } else {
+            ps.setLong(offset + 6, buffer.getTenantId());
+        }
+        if (buffer.getBatchRow(index) == 0) {
+            ps.setNull(offset + 7, Types.INTEGER);
+            ps.setNull(offset + 8, Types.INTEGER);
+        } else {
+            ps.setInt(offset + 7, buffer.getBatchRow(index));
+            ps.setInt(offset + 8, buffer.getBatchPosition(index));
+        }
+        ps.setString(offset + 9, buffer.getBlockingReason(index));
+        if (buffer.getCapacity(index) == 0) {
+            ps.setNull(offset + 10, Types.INTEGER);
+        } else {
+            ps.setInt(offset + 10, buffer.getCapacity(index));
+        }
+    }
+}
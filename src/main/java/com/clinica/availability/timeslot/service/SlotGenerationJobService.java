@@ -0,0 +1,196 @@
+package com.clinica.availability.timeslot.service;
+
+import com.clinica.availability.timeslot.dto.GenerationJobStatusDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Geração de slots como job em blocos de chunkDays dias. Cada bloco é gravado na sua própria
+ * transação junto com o checkpoint (next_date em slot_generation_job), então uma falha perde
+ * no máximo o bloco em andamento e o job pode ser retomado do checkpoint.
+ */
+@Service
+public class SlotGenerationJobService {
+
+    static final String RUNNING = "RUNNING";
+    static final String COMPLETED = "COMPLETED";
+    static final String FAILED = "FAILED";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SlotGenerationService slotGenerationService;
+
+    @Value("${availability.generation.job-concurrency:2}")
+    private int concurrency;
+
+    // Job RUNNING sem checkpoint há mais tempo que isso é considerado abandonado (queda do nó)
+    @Value("${availability.generation.job-stale-minutes:10}")
+    private long staleMinutes;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void initExecutor() {
+        executor = Executors.newFixedThreadPool(concurrency);
+    }
+
+    @PreDestroy
+    void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Cria o job e dispara a execução em segundo plano; retorna o ID para acompanhamento
+     */
+    public Long startJob(
+            String resourceType, Long resourceId, Long tenantId,
+            LocalDate startDate, LocalDate endDate, int chunkDays) {
+
+        if (resourceType == null || resourceId == null || startDate == null || endDate == null
+                || endDate.isBefore(startDate) || chunkDays <= 0) {
+            throw new IllegalArgumentException("Generation job needs a resource, a valid period and a positive chunk size");
+        }
+
+        int days = (int) ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        int chunksTotal = (days + chunkDays - 1) / chunkDays;
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO slot_generation_job " +
+                "(resource_type, resource_id, tenant_id, start_date, end_date, chunk_days, next_date, " +
+                "status, chunks_done, chunks_total, slots_generated, started_at, updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, ?, 0, NOW(), NOW())",
+                Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, resourceType);
+            ps.setLong(2, resourceId);
+            ps.setObject(3, tenantId);
+            ps.setDate(4, Date.valueOf(startDate));
+            ps.setDate(5, Date.valueOf(endDate));
+            ps.setInt(6, chunkDays);
+            ps.setDate(7, Date.valueOf(startDate));
+            ps.setString(8, RUNNING);
+            ps.setInt(9, chunksTotal);
+            return ps;
+        }, keyHolder);
+
+        Long jobId = keyHolder.getKey().longValue();
+        executor.submit(() -> runJob(jobId));
+        return jobId;
+    }
+
+    /**
+     * Retoma um job que falhou ou foi abandonado, a partir do checkpoint.
+     * Retorna false se o job não existe, já terminou ou ainda está ativo em algum nó.
+     */
+    public boolean resumeJob(Long jobId) {
+        // Reivindicação atômica: só um nó consegue mudar o job para RUNNING
+        int claimed = jdbcTemplate.update(
+            "UPDATE slot_generation_job SET status = ?, error = NULL, updated_at = NOW() " +
+            "WHERE id = ? AND (status = ? OR (status = ? AND updated_at < ?))",
+            RUNNING, jobId, FAILED, RUNNING, LocalDateTime.now().minusMinutes(staleMinutes));
+
+        if (claimed == 0) {
+            return false;
+        }
+        executor.submit(() -> runJob(jobId));
+        return true;
+    }
+
+    /**
+     * Andamento do job, ou null se não existir
+     */
+    public GenerationJobStatusDTO getJobStatus(Long jobId) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+            "SELECT * FROM slot_generation_job WHERE id = ?", jobId);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> job = rows.get(0);
+
+        GenerationJobStatusDTO status = new GenerationJobStatusDTO();
+        status.setId(jobId);
+        status.setResourceType((String) job.get("resource_type"));
+        status.setResourceId(((Number) job.get("resource_id")).longValue());
+        status.setStatus((String) job.get("status"));
+        status.setStartDate(((Date) job.get("start_date")).toLocalDate());
+        status.setEndDate(((Date) job.get("end_date")).toLocalDate());
+        status.setNextDate(((Date) job.get("next_date")).toLocalDate());
+        status.setChunksDone(((Number) job.get("chunks_done")).intValue());
+        status.setChunksTotal(((Number) job.get("chunks_total")).intValue());
+        status.setSlotsGenerated(((Number) job.get("slots_generated")).longValue());
+        status.setError((String) job.get("error"));
+        status.setStartedAt(((Timestamp) job.get("started_at")).toLocalDateTime());
+        status.setUpdatedAt(((Timestamp) job.get("updated_at")).toLocalDateTime());
+
+        // Progresso por dias gravados; vazão média desde o início
+        long days = ChronoUnit.DAYS.between(status.getStartDate(), status.getEndDate()) + 1;
+        long doneDays = ChronoUnit.DAYS.between(status.getStartDate(), status.getNextDate());
+        status.setProgress(Math.min(1.0, (double) doneDays / days));
+        long elapsedMillis = Duration.between(status.getStartedAt(), status.getUpdatedAt()).toMillis();
+        status.setSlotsPerSecond(elapsedMillis > 0 ? status.getSlotsGenerated() * 1000.0 / elapsedMillis : 0);
+
+        return status;
+    }
+
+    /**
+     * Executa os blocos restantes do job, do checkpoint até o fim do período
+     */
+    private void runJob(Long jobId) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Map<String, Object> job = jdbcTemplate.queryForMap(
+                    "SELECT resource_type, resource_id, tenant_id, end_date, chunk_days, next_date " +
+                    "FROM slot_generation_job WHERE id = ?", jobId);
+
+                LocalDate nextDate = ((Date) job.get("next_date")).toLocalDate();
+                LocalDate endDate = ((Date) job.get("end_date")).toLocalDate();
+                if (nextDate.isAfter(endDate)) {
+                    jdbcTemplate.update(
+                        "UPDATE slot_generation_job SET status = ?, updated_at = NOW() WHERE id = ?",
+                        COMPLETED, jobId);
+                    return;
+                }
+
+                int chunkDays = ((Number) job.get("chunk_days")).intValue();
+                LocalDate chunkEnd = nextDate.plusDays(chunkDays - 1L);
+                if (chunkEnd.isAfter(endDate)) {
+                    chunkEnd = endDate;
+                }
+
+                Number tenantId = (Number) job.get("tenant_id");
+                slotGenerationService.generateJobChunk(
+                    jobId,
+                    (String) job.get("resource_type"),
+                    ((Number) job.get("resource_id")).longValue(),
+                    nextDate, chunkEnd,
+                    tenantId != null ? tenantId.longValue() : null);
+            }
+        } catch (RuntimeException e) {
+            jdbcTemplate.update(
+                "UPDATE slot_generation_job SET status = ?, error = ?, updated_at = NOW() WHERE id = ?",
+                FAILED, String.valueOf(e.getMessage()), jobId);
+        }
+    }
+}
@@ -1,28 +1,44 @@
-package com.clinica.availability.service;
+package com.clinica.availability.timeslot.service;
 
+import com.clinica.availability.event.AvailabilityChangePublisher;
 import com.clinica.availability.model.AvailabilityRule;
 import com.clinica.availability.repository.AvailabilityRuleRepository;
+import com.clinica.availability.repository.OccupancySummaryRepository;
 import com.clinica.availability.repository.ResourceAvailabilityRepository;
-import com.clinica.availability.repository.TimeSlotRepository;
+import com.clinica.availability.timeslot.dto.CustomSlotRequestDTO;
+import com.clinica.availability.timeslot.dto.RegenerationReportDTO;
+import com.clinica.availability.timeslot.dto.TimeWindowDTO;
+import com.clinica.availability.timeslot.repository.TimeSlotRepository;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @Service
 public class SlotGenerationService {
 
+    private static final int BATCH_SIZE = 1000;
+    static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int MAX_CUSTOM_SLOTS = 500_000;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -35,6 +51,41 @@ public class SlotGenerationService {
     @Autowired
     private TimeSlotRepository timeSlotRepository;
 
+    @Autowired
+    private AvailabilityChangePublisher changePublisher;
+
+    @Value("${availability.generation.partial-exception-policy:KEEP_AVAILABLE}")
+    private ExceptionBlocks.PartialOverlapPolicy partialExceptionPolicy;
+
+    // Modo capacidade: uma linha por janela com capacity = max_slots, em vez de max_slots linhas
+    @Value("${availability.generation.capacity-mode:false}")
+    private boolean capacityMode;
+
+    // Sumários atualizados a partir dos contadores da geração; false volta ao recálculo por SQL
+    @Value("${availability.generation.streamed-summaries:true}")
+    private boolean streamedSummaries;
+
+    @Value("${availability.generation.bulk-load.strategy:BATCH}")
+    private SlotBulkLoader.Strategy bulkLoadStrategy;
+
+    @Value("${availability.generation.bulk-load.min-batch-size:250}")
+    private int minBatchSize;
+
+    @Value("${availability.generation.bulk-load.max-batch-size:20000}")
+    private int maxBatchSize;
+
+    @Value("${availability.generation.bulk-load.target-flush-millis:200}")
+    private long targetFlushMillis;
+
+    private SlotBulkLoader bulkLoader;
+    private AdaptiveBatchSize batchSize;
+
+    @PostConstruct
+    void initBulkLoad() {
+        bulkLoader = SlotBulkLoader.create(bulkLoadStrategy, jdbcTemplate);
+        batchSize = new AdaptiveBatchSize(BATCH_SIZE, minBatchSize, maxBatchSize, targetFlushMillis);
+    }
+
     /**
      * Gera slots para um recurso em um período específico
      */
@@ -43,44 +94,24 @@ public class SlotGenerationService {
             String resourceType, Long resourceId,
             LocalDate startDate, LocalDate endDate, Long tenantId) {
 
-        // 1. Buscar padrões ativos para o recurso
-        List<Map<String, Object>> patterns = resourceAvailabilityRepository
-            .findActivePatternsByResource(resourceType, resourceId, startDate, endDate);
+        // 1-6. Gerar os slots dos padrões ativos; são gravados em lotes de BATCH_SIZE
+        // à medida que são gerados, então a memória usada não depende do tamanho do período.
+        // As exceções são carregadas uma vez e os slots já saem bloqueados quando necessário
+        ExceptionBlocks blocks = loadExceptionBlocks(resourceType, resourceId, startDate, endDate);
+        OccupancyCounters counters = new OccupancyCounters(startDate, endDate);
+        SlotBatchWriter writer = new SlotBatchWriter(
+            new SlotBuffer(resourceType, resourceId, tenantId, batchSize.current()), blocks, counters);
+        generatePatternSlots(resourceType, resourceId, startDate, endDate, writer);
 
-        int totalGenerated = 0;
+        // 7. Gravar o último lote parcial
+        writer.flush();
+        int totalGenerated = writer.getWritten();
 
-        // 2. Para cada padrão, buscar regras e gerar slots
-        for (Map<String, Object> pattern : patterns) {
-            Long patternId = (Long) pattern.get("pattern_id");
+        // 8. Somar os slots gerados aos sumários de ocupação
+        updateOccupancySummaries(resourceType, resourceId, startDate, endDate, tenantId, counters);
 
-            // 3. Buscar regras do padrão
-            List<AvailabilityRule> rules = ruleRepository.findByPatternId(patternId);
-
-            // 4. Gerar slots para o período usando as regras
-            List<TimeSlotDTO> slots = generateSlotsFromRules(
-                rules, resourceType, resourceId, startDate, endDate, tenantId);
-
-            // 5. Buscar configurações de batch para slots em grupo
-            List<Map<String, Object>> batchConfigs = getBatchConfigurations(patternId);
-
-            // 6. Gerar slots de batch se houver configurações
-            if (!batchConfigs.isEmpty()) {
-                slots.addAll(generateBatchSlots(
-                    batchConfigs, resourceType, resourceId, startDate, endDate, tenantId));
-            }
-
-            // 7. Salvar slots gerados em lote
-            if (!slots.isEmpty()) {
-                batchInsertSlots(slots);
-                totalGenerated += slots.size();
-            }
-        }
-
-        // 8. Aplicar exceções sobre os slots gerados
-        applyExceptions(resourceType, resourceId, startDate, endDate);
-
-        // 9. Gerar sumários de ocupação
-        updateOccupancySummaries(resourceType, resourceId, startDate, endDate, tenantId);
+        // 9. Notificar caches sobre os novos slots (entregue após o commit)
+        changePublisher.slotsGenerated(resourceId, startDate, endDate);
 
         return totalGenerated;
     }
@@ -98,88 +129,407 @@ public class SlotGenerationService {
             "DELETE FROM time_slot " +
             "WHERE resource_type = ? " +
             "AND resource_id = ? " +
-            "AND DATE(start_time) BETWEEN ? AND ? " +
-            "AND status IN ('AVAILABLE', 'BLOCKED')",
-            resourceType, resourceId, startDate, endDate
+            "AND start_time >= ? AND start_time < ? " +
+            "AND status IN ('AVAILABLE', 'BLOCKED') AND booked_count = 0",
+            resourceType, resourceId, startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay()
         );
 
-        // 2. Gerar novos slots
-        return generateSlotsForResource(resourceType, resourceId, startDate, endDate, tenantId);
+        // 2. Gerar novos slots; as linhas removidas não passaram pelos contadores,
+        // então os sumários do período são recalculados a partir de time_slot
+        ExceptionBlocks blocks = loadExceptionBlocks(resourceType, resourceId, startDate, endDate);
+        SlotBatchWriter writer = new SlotBatchWriter(
+            new SlotBuffer(resourceType, resourceId, tenantId, batchSize.current()), blocks, null);
+        generatePatternSlots(resourceType, resourceId, startDate, endDate, writer);
+        writer.flush();
+
+        reconcileOccupancySummaries(resourceType, resourceId, startDate, endDate, tenantId);
+        changePublisher.slotsGenerated(resourceId, startDate, endDate);
+
+        return writer.getWritten();
     }
 
     /**
-     * Gera slots personalizados para um período
+     * Regenera slots para um período aplicando apenas a diferença: calcula o conjunto
+     * desejado, compara com as linhas existentes por (início, fim, batch_row, batch_position)
+     * e só insere/remove o necessário. Linhas iguais, inclusive reservadas, mantêm seus IDs.
      */
     @Transactional
-    public int generateCustomSlots(
+    public RegenerationReportDTO regenerateSlotsDiff(
             String resourceType, Long resourceId,
-            LocalDateTime startDateTime, LocalDateTime endDateTime, Long tenantId) {
+            LocalDate startDate, LocalDate endDate, Long tenantId) {
+
+        // 1. Conjunto desejado (já com as exceções aplicadas), ordenado pela chave de comparação
+        ExceptionBlocks blocks = loadExceptionBlocks(resourceType, resourceId, startDate, endDate);
+        SlotBuffer target = new SlotBuffer(resourceType, resourceId, tenantId, BATCH_SIZE);
+        generatePatternSlots(resourceType, resourceId, startDate, endDate, capacityAware(target));
+        for (int i = 0; i < target.size(); i++) {
+            blocks.apply(target, i);
+        }
+        int[] order = target.sortedOrder();
+
+        // 2. Percorrer as linhas existentes na mesma ordem (merge de duas sequências ordenadas)
+        RegenerationReportDTO report = new RegenerationReportDTO();
+        OccupancyCounters occupancy = new OccupancyCounters(startDate, endDate);
+        List<Long> staleIds = new ArrayList<>();
+        List<Long> changedIds = new ArrayList<>();
+        int[] toInsert = new int[order.length];
+        int[] toChange = new int[order.length];
+        int[] counters = new int[3]; // [0] = próximo slot desejado, [1] = a inserir, [2] = a atualizar
+
+        jdbcTemplate.query(
+            "SELECT id, start_time, end_time, batch_row, batch_position, status, blocking_reason, " +
+            "capacity, booked_count FROM time_slot " +
+            "WHERE resource_type = ? AND resource_id = ? " +
+            "AND start_time >= ? AND start_time < ? " +
+            "ORDER BY start_time, end_time, batch_row, batch_position, id",
+            rs -> {
+                long startMinute = SlotBuffer.toEpochMinute(rs.getTimestamp("start_time").toLocalDateTime());
+                long endMinute = SlotBuffer.toEpochMinute(rs.getTimestamp("end_time").toLocalDateTime());
+                int batchRow = rs.getInt("batch_row");          // NULL -> 0
+                int batchPosition = rs.getInt("batch_position"); // NULL -> 0
+
+                // Slots desejados anteriores à linha atual não existem: inserir
+                while (counters[0] < order.length
+                        && target.compareTo(order[counters[0]], startMinute, endMinute, batchRow, batchPosition) < 0) {
+                    toInsert[counters[1]++] = order[counters[0]++];
+                }
 
-        // Implementação de geração de slots personalizados
-        // Este método cria slots com base em parâmetros específicos, não em regras
+                String status = rs.getString("status");
+                boolean regenerable = isRegenerable(status, rs.getInt("booked_count"));
+                if (counters[0] < order.length
+                        && target.compareTo(order[counters[0]], startMinute, endMinute, batchRow, batchPosition) == 0) {
+                    int slot = order[counters[0]++];
+                    report.setKept(report.getKept() + 1);
+
+                    // Mesmo slot, mas o bloqueio por exceção ou a capacidade mudou
+                    int capacity = rs.getInt("capacity"); // NULL -> 0
+                    if (regenerable
+                            && (!target.getStatus(slot).equals(status)
+                                || !Objects.equals(target.getBlockingReason(slot), rs.getString("blocking_reason"))
+                                || target.getCapacity(slot) != capacity)) {
+                        changedIds.add(rs.getLong("id"));
+                        toChange[counters[2]++] = slot;
+                        occupancy.add(startMinute, "BLOCKED".equals(status), capacity, -1);
+                        occupancy.add(startMinute, target.isBlocked(slot), target.getCapacity(slot), 1);
+                    }
+                } else if (regenerable) {
+                    staleIds.add(rs.getLong("id"));
+                    occupancy.add(startMinute, "BLOCKED".equals(status), rs.getInt("capacity"), -1);
+                } else {
+                    report.setKept(report.getKept() + 1); // Reservas fora do conjunto desejado não são tocadas
+                }
+            },
+            resourceType, resourceId, startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
 
-        return 0; // Retorna número de slots gerados
+        while (counters[0] < order.length) {
+            toInsert[counters[1]++] = order[counters[0]++];
+        }
+
+        // 3. Remover as linhas que não fazem mais parte do conjunto
+        for (int i = 0; i < staleIds.size(); i += BATCH_SIZE) {
+            List<Long> batch = staleIds.subList(i, Math.min(i + BATCH_SIZE, staleIds.size()));
+            jdbcTemplate.batchUpdate("DELETE FROM time_slot WHERE id = ?", batch, batch.size(),
+                (ps, id) -> ps.setLong(1, id));
+        }
+        report.setDeleted(staleIds.size());
+
+        // 4. Inserir apenas os slots que faltam
+        SlotBatchWriter writer = new SlotBatchWriter(
+            new SlotBuffer(resourceType, resourceId, tenantId, batchSize.current()), blocks, occupancy);
+        for (int i = 0; i < counters[1]; i++) {
+            int slot = toInsert[i];
+            if (target.getCapacity(slot) == 0) {
+                writer.accept(target.getStartMinute(slot), target.getEndMinute(slot),
+                    target.getBatchRow(slot), target.getBatchPosition(slot));
+            } else {
+                writer.accept(target.getStartMinute(slot), target.getEndMinute(slot),
+                    target.getBatchRow(slot), target.getBatchPosition(slot), target.getCapacity(slot));
+            }
+        }
+        writer.flush();
+        report.setInserted(writer.getWritten());
+
+        // 5. Atualizar status e capacidade dos slots mantidos que mudaram
+        for (int i = 0; i < changedIds.size(); i += BATCH_SIZE) {
+            int from = i;
+            int count = Math.min(BATCH_SIZE, changedIds.size() - i);
+            jdbcTemplate.batchUpdate(
+                "UPDATE time_slot SET status = ?, blocking_reason = ?, capacity = ? WHERE id = ?",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int j) throws SQLException {
+                        int slot = toChange[from + j];
+                        ps.setString(1, target.getStatus(slot));
+                        ps.setString(2, target.getBlockingReason(slot));
+                        if (target.getCapacity(slot) == 0) {
+                            ps.setNull(3, Types.INTEGER);
+                        } else {
+                            ps.setInt(3, target.getCapacity(slot));
+                        }
+                        ps.setLong(4, changedIds.get(from + j));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return count;
+                    }
+                }
+            );
+        }
+        report.setUpdated(changedIds.size());
+
+        // 6. Aplicar as variações (inseridos, removidos e alterados) aos sumários e notificar caches
+        updateOccupancySummaries(resourceType, resourceId, startDate, endDate, tenantId, occupancy);
+        changePublisher.slotsGenerated(resourceId, startDate, endDate);
+
+        return report;
     }
 
     /**
-     * Gera slots com base nas regras de disponibilidade
+     * Gera um bloco de um job e avança o checkpoint na mesma transação. O checkpoint só
+     * avança se ainda estiver no início do bloco, o que impede dois executores no mesmo job.
      */
-    private List<TimeSlotDTO> generateSlotsFromRules(
-            List<AvailabilityRule> rules, String resourceType, Long resourceId,
-            LocalDate startDate, LocalDate endDate, Long tenantId) {
+    @Transactional
+    public int generateJobChunk(
+            Long jobId, String resourceType, Long resourceId,
+            LocalDate chunkStart, LocalDate chunkEnd, Long tenantId) {
+
+        int generated = generateSlotsForResource(resourceType, resourceId, chunkStart, chunkEnd, tenantId);
+
+        int advanced = jdbcTemplate.update(
+            "UPDATE slot_generation_job SET next_date = ?, chunks_done = chunks_done + 1, " +
+            "slots_generated = slots_generated + ?, updated_at = NOW() " +
+            "WHERE id = ? AND next_date = ?",
+            chunkEnd.plusDays(1), generated, jobId, chunkStart);
+        if (advanced == 0) {
+            throw new IllegalStateException("Checkpoint of job " + jobId + " moved; chunk discarded");
+        }
+
+        return generated;
+    }
+
+    /**
+     * Estende os slots do recurso até a data alvo a partir da marca "gerado até", gerando
+     * só os dias que faltam (normalmente um). Sem marca, reconcilia o período inteiro com
+     * a regeneração diferencial para não duplicar slots gerados antes. Retorna os slots inseridos.
+     */
+    @Transactional
+    public int extendHorizon(
+            String resourceType, Long resourceId, Long tenantId,
+            LocalDate today, LocalDate until) {
+
+        // 1. Garantir a linha da marca e travá-la (outra instância pode rodar o mesmo job)
+        jdbcTemplate.update(
+            "INSERT IGNORE INTO slot_generation_watermark " +
+            "(resource_type, resource_id, tenant_id, generated_until) VALUES (?, ?, ?, NULL)",
+            resourceType, resourceId, tenantId);
+
+        Date generatedUntil = jdbcTemplate.queryForObject(
+            "SELECT generated_until FROM slot_generation_watermark " +
+            "WHERE resource_type = ? AND resource_id = ? FOR UPDATE",
+            Date.class, resourceType, resourceId);
+
+        // 2. Calcular os dias faltantes (nunca antes de hoje)
+        LocalDate from = generatedUntil == null || generatedUntil.toLocalDate().isBefore(today)
+            ? today
+            : generatedUntil.toLocalDate().plusDays(1);
+        if (from.isAfter(until)) {
+            return 0;
+        }
+
+        // 3. Gerar o intervalo e avançar a marca na mesma transação
+        int generated = generatedUntil == null
+            ? regenerateSlotsDiff(resourceType, resourceId, from, until, tenantId).getInserted()
+            : generateSlotsForResource(resourceType, resourceId, from, until, tenantId);
+
+        jdbcTemplate.update(
+            "UPDATE slot_generation_watermark SET generated_until = ? " +
+            "WHERE resource_type = ? AND resource_id = ?",
+            until, resourceType, resourceId);
+
+        return generated;
+    }
 
-        List<TimeSlotDTO> generatedSlots = new ArrayList<>();
-
-        // Para cada dia no período
-        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
-            int dayOfWeek = date.getDayOfWeek().getValue() % 7; // 0 = Domingo, 6 = Sábado
-            int dayOfMonth = date.getDayOfMonth();
-
-            // Para cada regra
-            for (AvailabilityRule rule : rules) {
-                // Verificar se a regra se aplica a este dia
-                boolean applies = false;
-
-                if (rule.getRuleType() == AvailabilityRule.RuleType.WEEKLY && rule.getWeekday() == dayOfWeek) {
-                    applies = true;
-                } else if (rule.getRuleType() == AvailabilityRule.RuleType.MONTHLY && rule.getDayOfMonth() == dayOfMonth) {
-                    applies = true;
-                } else if (rule.getRuleType() == AvailabilityRule.RuleType.CUSTOM &&
-                           !date.isBefore(rule.getStartDate()) &&
-                           (rule.getEndDate() == null || !date.isAfter(rule.getEndDate()))) {
-                    applies = true;
+    /**
+     * Gera slots avulsos (campanhas, mutirões) a partir de parâmetros explícitos, sem regras.
+     * Os slots passam pelo mesmo gravador em lotes e pelas mesmas exceções da geração por
+     * regras, então a memória usada não depende da quantidade gerada.
+     */
+    @Transactional
+    public int generateCustomSlots(CustomSlotRequestDTO request) {
+        validateCustomRequest(request);
+
+        String resourceType = request.getResourceType();
+        Long resourceId = request.getResourceId();
+        Long tenantId = request.getTenantId();
+        LocalDate startDate = request.getStartDateTime().toLocalDate();
+        LocalDate endDate = request.getEndDateTime().toLocalDate();
+
+        // 1. Janelas excluídas pelo pedido: qualquer sobreposição impede o slot
+        List<TimeWindowDTO> windows = request.getExclusions() != null ? request.getExclusions() : List.of();
+        List<long[]> intervals = new ArrayList<>(windows.size());
+        for (TimeWindowDTO window : windows) {
+            intervals.add(new long[] {
+                SlotBuffer.toEpochMinute(window.getStartTime()), SlotBuffer.toEpochMinute(window.getEndTime())});
+        }
+        ExceptionBlocks exclusions = ExceptionBlocks.of(
+            intervals, Collections.nCopies(intervals.size(), null), ExceptionBlocks.PartialOverlapPolicy.BLOCK);
+
+        // 2. Gerar e gravar em lotes, com as exceções do recurso aplicadas em memória
+        ExceptionBlocks blocks = loadExceptionBlocks(resourceType, resourceId, startDate, endDate);
+        OccupancyCounters counters = new OccupancyCounters(startDate, endDate);
+        SlotBatchWriter writer = new SlotBatchWriter(
+            new SlotBuffer(resourceType, resourceId, tenantId, batchSize.current()), blocks, counters);
+        generateCustomWindows(request, exclusions, writer);
+        writer.flush();
+
+        // 3. Sumários e notificação de caches
+        updateOccupancySummaries(resourceType, resourceId, startDate, endDate, tenantId, counters);
+        changePublisher.slotsGenerated(resourceId, startDate, endDate);
+
+        return writer.getWritten();
+    }
+
+    /**
+     * Percorre o período em passos de duração + intervalo, respeitando a janela diária e
+     * recomeçando ao fim de cada exclusão (visível no pacote para os benchmarks de geração)
+     */
+    void generateCustomWindows(CustomSlotRequestDTO request, ExceptionBlocks exclusions, SlotSink sink) {
+        int duration = request.getDurationMinutes();
+        int step = duration + request.getGapMinutes();
+        int capacity = request.getParallelCapacity();
+        boolean daily = request.getDailyStartTime() != null;
+        int dailyStart = daily ? minuteOfDay(request.getDailyStartTime()) : 0;
+        int dailyEnd = daily ? minuteOfDay(request.getDailyEndTime()) : MINUTES_PER_DAY;
+
+        long end = SlotBuffer.toEpochMinute(request.getEndDateTime());
+        long slotStart = SlotBuffer.toEpochMinute(request.getStartDateTime());
+
+        while (slotStart + duration <= end) {
+            // Fora da janela diária: avançar para a abertura do dia (ou do dia seguinte)
+            if (daily) {
+                long dayStart = Math.floorDiv(slotStart, MINUTES_PER_DAY) * MINUTES_PER_DAY;
+                if (slotStart < dayStart + dailyStart) {
+                    slotStart = dayStart + dailyStart;
+                    continue;
+                }
+                if (slotStart + duration > dayStart + dailyEnd) {
+                    slotStart = dayStart + MINUTES_PER_DAY + dailyStart;
+                    continue;
                 }
+            }
 
-                if (applies) {
-                    // Gerar slots para esta regra neste dia
-                    LocalTime startTime = rule.getStartTime();
-                    LocalTime endTime = rule.getEndTime();
-                    int duration = rule.getSlotDuration();
-
-                    while (startTime.plusMinutes(duration).compareTo(endTime) <= 0) {
-                        LocalDateTime slotStart = LocalDateTime.of(date, startTime);
-                        LocalDateTime slotEnd = slotStart.plusMinutes(duration);
-
-                        // Gerar slot(s) - considerando paralelismo (max_slots)
-                        for (int i = 0; i < rule.getMaxSlots(); i++) {
-                            TimeSlotDTO slot = new TimeSlotDTO();
-                            slot.setResourceType(resourceType);
-                            slot.setResourceId(resourceId);
-                            slot.setStartTime(slotStart);
-                            slot.setEndTime(slotEnd);
-                            slot.setStatus("AVAILABLE");
-                            slot.setTenantId(tenantId);
-
-                            generatedSlots.add(slot);
-                        }
+            // Sobrepõe uma exclusão: recomeçar quando ela termina
+            int exclusion = exclusions.find(slotStart, slotStart + duration);
+            if (exclusion >= 0) {
+                slotStart = exclusions.getEnd(exclusion);
+                continue;
+            }
 
-                        startTime = startTime.plusMinutes(duration);
-                    }
+            sink.accept(slotStart, slotStart + duration, 0, 0, capacity);
+            slotStart += step;
+        }
+    }
+
+    private void validateCustomRequest(CustomSlotRequestDTO request) {
+        if (request.getResourceType() == null || request.getResourceId() == null
+                || request.getStartDateTime() == null || request.getEndDateTime() == null
+                || !request.getEndDateTime().isAfter(request.getStartDateTime())) {
+            throw new IllegalArgumentException("Custom generation needs a resource and a non-empty period");
+        }
+        if (request.getDurationMinutes() <= 0 || request.getGapMinutes() < 0 || request.getParallelCapacity() <= 0) {
+            throw new IllegalArgumentException("Custom generation needs a positive duration and capacity and a non-negative gap");
+        }
+        if ((request.getDailyStartTime() == null) != (request.getDailyEndTime() == null)
+                || (request.getDailyStartTime() != null
+                    && !request.getDailyEndTime().isAfter(request.getDailyStartTime()))) {
+            throw new IllegalArgumentException("Daily window needs both bounds, with end after start");
+        }
+        if (request.getExclusions() != null) {
+            for (TimeWindowDTO window : request.getExclusions()) {
+                if (window.getStartTime() == null || window.getEndTime() == null
+                        || !window.getEndTime().isAfter(window.getStartTime())) {
+                    throw new IllegalArgumentException("Exclusion windows need a start before the end");
                 }
             }
         }
 
-        return generatedSlots;
+        // Limite de segurança contra pedidos desproporcionais (linhas gravadas, no pior caso)
+        long minutes = Duration.between(request.getStartDateTime(), request.getEndDateTime()).toMinutes();
+        long rows = minutes / (request.getDurationMinutes() + request.getGapMinutes())
+            * (capacityMode ? 1 : request.getParallelCapacity());
+        if (rows > MAX_CUSTOM_SLOTS) {
+            throw new IllegalArgumentException("Custom generation would create more than " + MAX_CUSTOM_SLOTS + " slots");
+        }
+    }
+
+    /**
+     * Gera os slots de todos os padrões ativos do recurso no período
+     */
+    private void generatePatternSlots(
+            String resourceType, Long resourceId, LocalDate startDate, LocalDate endDate, SlotSink sink) {
+
+        // 1. Buscar padrões ativos para o recurso
+        List<Map<String, Object>> patterns = resourceAvailabilityRepository
+            .findActivePatternsByResource(resourceType, resourceId, startDate, endDate);
+
+        // 2. Para cada padrão, buscar regras e gerar slots
+        for (Map<String, Object> pattern : patterns) {
+            Long patternId = (Long) pattern.get("pattern_id");
+
+            // 3. Buscar regras do padrão
+            List<AvailabilityRule> rules = ruleRepository.findByPatternId(patternId);
+
+            // 4. Gerar slots para o período usando as regras
+            generateSlotsFromRules(rules, startDate, endDate, sink);
+
+            // 5. Buscar configurações de batch para slots em grupo
+            List<Map<String, Object>> batchConfigs = getBatchConfigurations(patternId);
+
+            // 6. Gerar slots de batch se houver configurações
+            if (!batchConfigs.isEmpty()) {
+                generateBatchSlots(batchConfigs, startDate, endDate, sink);
+            }
+        }
+    }
+
+    /**
+     * Slots que a regeneração pode remover ou alterar: sem reservas, nem por linha
+     * (status) nem pelo contador do modo capacidade
+     */
+    private static boolean isRegenerable(String status, int bookedCount) {
+        return ("AVAILABLE".equals(status) || "BLOCKED".equals(status)) && bookedCount == 0;
+    }
+
+    /**
+     * Destino que grava direto no buffer respeitando o modo capacidade
+     */
+    private SlotSink capacityAware(SlotBuffer buffer) {
+        if (!capacityMode) {
+            return buffer; // max_slots vira linhas repetidas (padrão de SlotSink)
+        }
+        return new SlotSink() {
+            @Override
+            public void accept(long startMinute, long endMinute, int batchRow, int batchPosition) {
+                buffer.accept(startMinute, endMinute, batchRow, batchPosition);
+            }
+
+            @Override
+            public void accept(long startMinute, long endMinute, int batchRow, int batchPosition, int capacity) {
+                buffer.acceptWithCapacity(startMinute, endMinute, batchRow, batchPosition, capacity);
+            }
+        };
+    }
+
+    /**
+     * Gera slots com base nas regras de disponibilidade, entregando cada um ao destino
+     * (visível no pacote para os benchmarks de geração)
+     */
+    void generateSlotsFromRules(
+            List<AvailabilityRule> rules, LocalDate startDate, LocalDate endDate, SlotSink sink) {
+
+        // Regras indexadas por dia da semana / dia do mês / data; cada dia só visita as que se aplicam
+        RuleDispatch.of(rules).generate(startDate, endDate, sink);
     }
 
     /**
@@ -191,121 +541,90 @@ public class SlotGenerationService {
     }
 
     /**
-     * Gera slots em lote baseados em configurações de batch
+     * Gera slots em lote baseados em configurações de batch, entregando cada um ao destino
+     * (visível no pacote para os benchmarks de geração)
      */
-    private List<TimeSlotDTO> generateBatchSlots(
-            List<Map<String, Object>> batchConfigs, String resourceType, Long resourceId,
-            LocalDate startDate, LocalDate endDate, Long tenantId) {
-
-        List<TimeSlotDTO> batchSlots = new ArrayList<>();
+    void generateBatchSlots(
+            List<Map<String, Object>> batchConfigs, LocalDate startDate, LocalDate endDate, SlotSink sink) {
 
-        // Para cada configuração de batch
+        // Cada configuração vira um molde de dia, calculado uma vez e carimbado nas datas
         for (Map<String, Object> config : batchConfigs) {
-            Integer weekday = (Integer) config.get("weekday");
-            Integer totalSlots = (Integer) config.get("total_slots");
-            Integer parallelCapacity = (Integer) config.get("parallel_capacity");
-            Integer avgDuration = (Integer) config.get("avg_duration");
-            LocalTime startTime = ((java.sql.Time) config.get("start_time")).toLocalTime();
-            LocalTime endTime = ((java.sql.Time) config.get("end_time")).toLocalTime();
-
-            // Calcular número de linhas (rows)
-            int rows = (int) Math.ceil((double) totalSlots / parallelCapacity);
-
-            // Para cada dia no período
-            for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
-                // Verificar se é o dia da semana correto
-                if (date.getDayOfWeek().getValue() % 7 == weekday) {
-                    // Calcular duração total disponível em minutos
-                    long totalMinutes = java.time.Duration.between(startTime, endTime).toMinutes();
-
-                    // Calcular intervalo entre slots
-                    long slotInterval = Math.max(totalMinutes / rows, avgDuration);
-
-                    // Gerar slots para cada linha
-                    for (int row = 0; row < rows; row++) {
-                        // Calcular horário de início para esta linha
-                        LocalTime rowStartTime = startTime.plusMinutes(row * slotInterval);
-                        if (rowStartTime.compareTo(endTime) >= 0) {
-                            break; // Passou do horário final
-                        }
+            BatchDayTemplate.compile(config).stamp(startDate, endDate, sink);
+        }
+    }
 
-                        // Calcular horário de fim para esta linha
-                        LocalTime rowEndTime = rowStartTime.plusMinutes(avgDuration);
-                        if (rowEndTime.compareTo(endTime) > 0) {
-                            rowEndTime = endTime;
-                        }
+    /**
+     * Acumula slots no buffer colunar e os grava pela estratégia configurada sempre que o
+     * buffer atinge o tamanho de lote atual (ajustado pela latência das gravações).
+     * Cada slot é comparado às exceções ao entrar, então já é gravado com o status final.
+     */
+    private class SlotBatchWriter implements SlotSink {
 
-                        // Definir horários de início e fim do slot
-                        LocalDateTime slotStart = LocalDateTime.of(date, rowStartTime);
-                        LocalDateTime slotEnd = LocalDateTime.of(date, rowEndTime);
-
-                        // Gerar slots paralelos para esta linha
-                        int slotsInThisRow = Math.min(parallelCapacity,
-                                                     totalSlots - row * parallelCapacity);
-
-                        for (int pos = 0; pos < slotsInThisRow; pos++) {
-                            TimeSlotDTO slot = new TimeSlotDTO();
-                            slot.setResourceType(resourceType);
-                            slot.setResourceId(resourceId);
-                            slot.setStartTime(slotStart);
-                            slot.setEndTime(slotEnd);
-                            slot.setStatus("AVAILABLE");
-                            slot.setTenantId(tenantId);
-                            slot.setBatchRow(row + 1);
-                            slot.setBatchPosition(pos + 1);
-
-                            batchSlots.add(slot);
-                        }
-                    }
-                }
+        private final SlotBuffer buffer;
+        private final ExceptionBlocks blocks;
+        private final OccupancyCounters counters; // null = sumários recalculados por SQL
+        private int written;
+
+        SlotBatchWriter(SlotBuffer buffer, ExceptionBlocks blocks, OccupancyCounters counters) {
+            this.buffer = buffer;
+            this.blocks = blocks;
+            this.counters = counters;
+        }
+
+        @Override
+        public void accept(long startMinute, long endMinute, int batchRow, int batchPosition) {
+            buffer.accept(startMinute, endMinute, batchRow, batchPosition);
+            added();
+        }
+
+        @Override
+        public void accept(long startMinute, long endMinute, int batchRow, int batchPosition, int capacity) {
+            if (!capacityMode) {
+                SlotSink.super.accept(startMinute, endMinute, batchRow, batchPosition, capacity);
+                return;
             }
+            buffer.acceptWithCapacity(startMinute, endMinute, batchRow, batchPosition, capacity);
+            added();
         }
 
-        return batchSlots;
-    }
+        private void added() {
+            if (!blocks.isEmpty()) {
+                blocks.apply(buffer, buffer.size() - 1);
+            }
+            if (buffer.size() >= batchSize.current()) {
+                flush();
+            }
+        }
 
-    /**
-     * Insere slots em lote no banco de dados
-     */
-    private void batchInsertSlots(List<TimeSlotDTO> slots) {
-        final int batchSize = 1000;
+        void flush() {
+            if (buffer.isEmpty()) {
+                return;
+            }
 
-        for (int i = 0; i < slots.size(); i += batchSize) {
-            final List<TimeSlotDTO> batch =
-                slots.subList(i, Math.min(i + batchSize, slots.size()));
+            long started = System.nanoTime();
+            bulkLoader.load(buffer);
+            batchSize.record(buffer.size(), System.nanoTime() - started);
 
-            jdbcTemplate.batchUpdate(
-                "INSERT INTO time_slot " +
-                "(resource_type, resource_id, start_time, end_time, " +
-                "status, tenant_id, batch_row, batch_position) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
-                new BatchPreparedStatementSetter() {
-                    @Override
-                    public void setValues(PreparedStatement ps, int j) throws SQLException {
-                        TimeSlotDTO slot = batch.get(j);
-                        ps.setString(1, slot.getResourceType());
-                        ps.setLong(2, slot.getResourceId());
-                        ps.setTimestamp(3, Timestamp.valueOf(slot.getStartTime()));
-                        ps.setTimestamp(4, Timestamp.valueOf(slot.getEndTime()));
-                        ps.setString(5, slot.getStatus());
-                        ps.setLong(6, slot.getTenantId());
-                        ps.setObject(7, slot.getBatchRow());
-                        ps.setObject(8, slot.getBatchPosition());
-                    }
+            if (counters != null) {
+                counters.addAll(buffer);
+            }
+            written += buffer.size();
+            buffer.clear();
+        }
 
-                    @Override
-                    public int getBatchSize() {
-                        return batch.size();
-                    }
-                }
-            );
+        int getWritten() {
+            return written;
         }
     }
 
+    static int minuteOfDay(LocalTime time) {
+        return time.toSecondOfDay() / 60;
+    }
+
     /**
-     * Aplica exceções aos slots gerados
+     * Carrega as exceções de bloqueio do período em uma estrutura ordenada por início
      */
-    private void applyExceptions(
+    private ExceptionBlocks loadExceptionBlocks(
             String resourceType, Long resourceId,
             LocalDate startDate, LocalDate endDate) {
 
@@ -314,38 +633,82 @@ public class SlotGenerationService {
 
         // Buscar exceções para o período
         List<Map<String, Object>> exceptions = jdbcTemplate.queryForList(
-            "SELECT * FROM availability_exception " +
+            "SELECT start_datetime, end_datetime, reason FROM availability_exception " +
             "WHERE resource_type = ? AND resource_id = ? " +
+            "AND exception_type = 'BLOCK' " +
             "AND start_datetime < ? AND end_datetime > ?",
             resourceType, resourceId, endDateTime, startDateTime
         );
 
-        // Aplicar cada exceção
+        List<long[]> intervals = new ArrayList<>(exceptions.size());
+        List<String> reasons = new ArrayList<>(exceptions.size());
         for (Map<String, Object> exception : exceptions) {
-            String exceptionType = (String) exception.get("exception_type");
             LocalDateTime exStart = ((Timestamp) exception.get("start_datetime")).toLocalDateTime();
             LocalDateTime exEnd = ((Timestamp) exception.get("end_datetime")).toLocalDateTime();
-            String reason = (String) exception.get("reason");
-
-            if ("BLOCK".equals(exceptionType)) {
-                // Bloquear slots no período
-                jdbcTemplate.update(
-                    "UPDATE time_slot " +
-                    "SET status = 'BLOCKED', " +
-                    "    blocking_reason = ? " +
-                    "WHERE resource_type = ? AND resource_id = ? " +
-                    "AND start_time >= ? AND end_time <= ? " +
-                    "AND status = 'AVAILABLE'",
-                    reason, resourceType, resourceId, exStart, exEnd
-                );
-            }
+            intervals.add(new long[] {SlotBuffer.toEpochMinute(exStart), SlotBuffer.toEpochMinute(exEnd)});
+            reasons.add((String) exception.get("reason"));
         }
+
+        return ExceptionBlocks.of(intervals, reasons, partialExceptionPolicy);
     }
 
     /**
-     * Atualiza sumários de ocupação para slots gerados
+     * Soma os contadores da geração aos sumários de ocupação em um único lote de upserts.
+     * Linhas novas com saldo negativo (sumário ausente antes da remoção) ficam marcadas
+     * para o recálculo periódico.
      */
     private void updateOccupancySummaries(
+            String resourceType, Long resourceId,
+            LocalDate startDate, LocalDate endDate, Long tenantId,
+            OccupancyCounters counters) {
+
+        if (!streamedSummaries) {
+            reconcileOccupancySummaries(resourceType, resourceId, startDate, endDate, tenantId);
+            return;
+        }
+
+        List<Object[]> hours = counters.changedHours();
+        if (hours.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO occupancy_summary " +
+            "(resource_type, resource_id, date, hour, " +
+            "total_slots, available_slots, booked_slots, blocked_slots, " +
+            "completed_slots, tenant_id, needs_recalculation) " +
+            "VALUES (?, ?, ?, ?, ?, ?, 0, ?, 0, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "total_slots = total_slots + VALUES(total_slots), " +
+            "available_slots = available_slots + VALUES(available_slots), " +
+            "blocked_slots = blocked_slots + VALUES(blocked_slots)",
+            hours, hours.size(),
+            (ps, hour) -> {
+                int total = (int) hour[2];
+                int available = (int) hour[3];
+                int blocked = (int) hour[4];
+                ps.setString(1, resourceType);
+                ps.setLong(2, resourceId);
+                ps.setDate(3, Date.valueOf((LocalDate) hour[0]));
+                ps.setInt(4, (int) hour[1]);
+                ps.setInt(5, total);
+                ps.setInt(6, available);
+                ps.setInt(7, blocked);
+                if (tenantId == null) {
+                    ps.setNull(8, Types.BIGINT); // Recurso sem tenant
+                } else {
+                    ps.setLong(8, tenantId);
+                }
+                ps.setBoolean(9, total < 0 || available < 0 || blocked < 0);
+            });
+    }
+
+    /**
+     * Recalcula os sumários de ocupação do período a partir de time_slot. Usado quando os
+     * contadores da geração não estão disponíveis e para reconciliar sumários divergentes.
+     */
+    @Transactional
+    public void reconcileOccupancySummaries(
             String resourceType, Long resourceId,
             LocalDate startDate, LocalDate endDate, Long tenantId) {
 
@@ -359,57 +722,14 @@ public class SlotGenerationService {
             "    resource_id, " +
             "    DATE(start_time) as date, " +
             "    HOUR(start_time) as hour, " +
-            "    COUNT(*) as total_slots, " +
-            "    SUM(CASE WHEN status = 'AVAILABLE' THEN 1 ELSE 0 END) as available_slots, " +
-            "    SUM(CASE WHEN status = 'BOOKED' THEN 1 ELSE 0 END) as booked_slots, " +
-            "    SUM(CASE WHEN status = 'BLOCKED' THEN 1 ELSE 0 END) as blocked_slots, " +
-            "    SUM(CASE WHEN status = 'COMPLETED' THEN 1 ELSE 0 END) as completed_slots, " +
+            OccupancySummaryRepository.SLOT_COUNTS +
             "    tenant_id " +
             "FROM time_slot " +
             "WHERE resource_type = ? AND resource_id = ? " +
-            "AND DATE(start_time) BETWEEN ? AND ? " +
-            "AND tenant_id = ? " +
+            "AND start_time >= ? AND start_time < ? " +
+            "AND tenant_id <=> ? " +
             "GROUP BY resource_type, resource_id, DATE(start_time), HOUR(start_time), tenant_id",
-            resourceType, resourceId, startDate, endDate, tenantId
+            resourceType, resourceId, startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay(), tenantId
         );
     }
-
-    /**
-     * Classe auxiliar para representar um slot durante a geração
-     */
-    private static class TimeSlotDTO {
-        private String resourceType;
-        private Long resourceId;
-        private LocalDateTime startTime;
-        private LocalDateTime endTime;
-        private String status;
-        private Long tenantId;
-        private Integer batchRow;
-        private Integer batchPosition;
-
-        // Getters e setters
-        public String getResourceType() { return resourceType; }
-        public void setResourceType(String resourceType) { this.resourceType = resourceType; }
-
-        public Long getResourceId() { return resourceId; }
-        public void setResourceId(Long resourceId) { this.resourceId = resourceId; }
-
-        public LocalDateTime getStartTime() { return startTime; }
-        public void setStartTime(LocalDateTime startTime) { this.startTime = startTime; }
-
-        public LocalDateTime getEndTime() { return endTime; }
-        public void setEndTime(LocalDateTime endTime) { this.endTime = endTime; }
-
-        public String getStatus() { return status; }
-        public void setStatus(String status) { this.status = status; }
-
-        public Long getTenantId() { return tenantId; }
-        public void setTenantId(Long tenantId) { this.tenantId = tenantId; }
-
-        public Integer getBatchRow() { return batchRow; }
-        public void setBatchRow(Integer batchRow) { this.batchRow = batchRow; }
-
-        public Integer getBatchPosition() { return batchPosition; }
-        public void setBatchPosition(Integer batchPosition) { this.batchPosition = batchPosition; }
-    }
-}
\ No newline at end of file
+}
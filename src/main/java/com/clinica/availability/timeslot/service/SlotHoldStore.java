@@ -0,0 +1,52 @@
+package com.clinica.availability.timeslot.service;
+
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Reservas temporárias (holds) de slots durante o preenchimento do agendamento. Cada hold
+ * pertence a um token e expira sozinho; nada é gravado no banco até a confirmação. Enquanto
+ * vigente, o slot sai das listagens e só o dono do token consegue reservá-lo.
+ * Selecionado por availability.holds.store.
+ */
+interface SlotHoldStore {
+
+    /**
+     * Cria o hold se o slot estiver livre; false se outro token já o segura
+     */
+    boolean tryHold(Long slotId, String token, Duration ttl);
+
+    /**
+     * Remove o hold apenas se ainda pertencer ao token
+     */
+    boolean release(Long slotId, String token);
+
+    /**
+     * Token que segura o slot, ou null se não há hold vigente
+     */
+    String getHolder(Long slotId);
+
+    /**
+     * Entre os slots informados, os que estão seguros por algum token
+     */
+    Set<Long> findHeld(Collection<Long> slotIds);
+
+    enum Type {
+        /** Chaves com TTL no Redis, compartilhadas entre os nós */
+        REDIS,
+        /** Mapa local do processo (testes e execução sem Redis) */
+        MEMORY
+    }
+
+    static SlotHoldStore create(Type type, RedisTemplate<String, Object> redisTemplate) {
+        switch (type) {
+            case MEMORY:
+                return new InMemorySlotHoldStore();
+            default:
+                return new RedisSlotHoldStore(redisTemplate);
+        }
+    }
+}
@@ -1,19 +1,39 @@
 package com.clinica.availability.timeslot.service;
 
+import com.clinica.availability.dto.FreeIntervalDTO;
+import com.clinica.availability.event.AvailabilityChangeEvent;
+import com.clinica.availability.event.AvailabilityChangePublisher;
 import com.clinica.availability.model.TimeSlot;
 //import com.clinica.availability.model.TimeSlot.SlotStatus;
+import com.clinica.availability.repository.OccupancySummaryRepository;
+import com.clinica.availability.timeslot.dto.JointAvailabilityRequestDTO;
+import com.clinica.availability.timeslot.dto.ResourceRefDTO;
 import com.clinica.availability.timeslot.repository.HistoricalSlotRepository;
-import com.clinica.availability.timeSlot.repository.OccupancySummaryRepository;
-import com.clinica.availability.timeSlot.repository.TimeSlotRepository;
+import com.clinica.availability.timeslot.repository.TimeSlotRepository;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 public class SlotService {
@@ -30,6 +50,31 @@ public class SlotService {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private AvailabilityChangePublisher changePublisher;
+
+    private static final int MAX_BATCH_BOOKING_SLOTS = 1000;
+
+    // TTL longo: as entradas são invalidadas pelos eventos de alteração
+    @Value("${availability.cache.next-slots-ttl-minutes:720}")
+    private long nextSlotsTtlMinutes;
+
+    @Value("${availability.holds.store:REDIS}")
+    private SlotHoldStore.Type holdStoreType;
+
+    @Value("${availability.holds.ttl-seconds:90}")
+    private long holdTtlSeconds;
+
+    @Value("${availability.holds.max-ttl-seconds:600}")
+    private long maxHoldTtlSeconds;
+
+    private SlotHoldStore holdStore;
+
+    @PostConstruct
+    void initHoldStore() {
+        holdStore = SlotHoldStore.create(holdStoreType, redisTemplate);
+    }
+
     /**
      * Busca slots disponíveis para um recurso
      */
@@ -38,11 +83,11 @@ public class SlotService {
             LocalDateTime startTime, LocalDateTime endTime) {
 
         return timeSlotRepository.findByResourceTypeAndResourceIdAndStartTimeBetweenAndStatus(
-            resourceType, resourceId, startTime, endTime, TimeSlot.SlotStatus.AVAILABLE);
+            resourceType, resourceId, startTime, endTime, "AVAILABLE");
     }
 
     /**
-     * Busca próximos slots disponíveis
+     * Busca próximos slots disponíveis (sem os que estão seguros por um hold)
      */
     public List<Map<String, Object>> findNextAvailableSlots(
             String resourceType, Long resourceId, LocalDateTime after, Long serviceTypeId) {
@@ -56,17 +101,111 @@ public class SlotService {
             (List<Map<String, Object>>) redisTemplate.opsForValue().get(cacheKey);
 
         if (cachedSlots != null) {
-            return cachedSlots;
+            return withoutHeldSlots(cachedSlots);
         }
 
         // Buscar do banco
         List<Map<String, Object>> slots = historicalSlotRepository.findNextAvailableSlots(
             resourceType, resourceId, after, serviceTypeId);
 
-        // Armazenar no cache com TTL curto
-        redisTemplate.opsForValue().set(cacheKey, slots, Duration.ofMinutes(5));
+        // Armazenar no cache; alterações de disponibilidade invalidam a entrada.
+        // Holds duram segundos, então são filtrados a cada leitura e não entram no cache
+        redisTemplate.opsForValue().set(cacheKey, slots, Duration.ofMinutes(nextSlotsTtlMinutes));
 
-        return slots;
+        return withoutHeldSlots(slots);
+    }
+
+    /**
+     * Segura um slot livre por alguns segundos enquanto o paciente conclui o agendamento. O hold
+     * não altera o banco e expira sozinho; enquanto vigente, tira o slot das listagens e faz as
+     * reservas diretas (bookSlot, bookSlots) falharem, de modo que só confirmHold com o token
+     * reserva o slot. Retorna o token do hold, ou null se o slot não existe, não está AVAILABLE
+     * ou já está seguro.
+     */
+    public String holdSlot(Long slotId, Long ttlSeconds) {
+        long seconds = ttlSeconds != null ? ttlSeconds : holdTtlSeconds;
+        if (seconds <= 0 || seconds > maxHoldTtlSeconds) {
+            throw new IllegalArgumentException("Hold TTL must be between 1 and " + maxHoldTtlSeconds + " seconds");
+        }
+
+        // O slot pode ser reservado logo após a verificação; nesse caso a confirmação falha no UPDATE
+        if (!historicalSlotRepository.isSlotAvailable(slotId)) {
+            return null;
+        }
+
+        String token = UUID.randomUUID().toString();
+        return holdStore.tryHold(slotId, token, Duration.ofSeconds(seconds)) ? token : null;
+    }
+
+    /**
+     * Libera o hold antes de expirar (ex.: formulário cancelado)
+     */
+    public boolean releaseHold(Long slotId, String token) {
+        return holdStore.release(slotId, token);
+    }
+
+    /**
+     * Converte o hold em reserva. Falha se o hold expirou ou pertence a outro token. O hold só é
+     * liberado depois do commit da reserva: se o UPDATE não reservar ou a transação for desfeita,
+     * o paciente continua com o hold até expirar.
+     */
+    @Transactional
+    public boolean confirmHold(
+            Long slotId, String token, Long bookingId, String modifiedBy, String reason) {
+
+        // 1. O hold precisa estar vigente e pertencer ao token
+        if (token == null || !token.equals(holdStore.getHolder(slotId))) {
+            return false;
+        }
+
+        // 2. Reservar e liberar o hold só após o commit
+        if (!book(slotId, bookingId, modifiedBy, reason)) {
+            return false;
+        }
+        releaseHoldAfterCommit(slotId, token);
+        return true;
+    }
+
+    private void releaseHoldAfterCommit(Long slotId, String token) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    holdStore.release(slotId, token);
+                }
+            });
+        } else {
+            holdStore.release(slotId, token);
+        }
+    }
+
+    /**
+     * Busca as primeiras janelas em que todos os recursos (ex.: médico, sala e equipamento)
+     * estão livres ao mesmo tempo pela duração exigida
+     */
+    public List<FreeIntervalDTO> findJointAvailability(JointAvailabilityRequestDTO request) {
+        if (request.getResources() == null || request.getResources().isEmpty()
+                || request.getDurationMinutes() <= 0 || request.getLimit() <= 0) {
+            throw new IllegalArgumentException("Joint search needs resources, a positive duration and limit");
+        }
+
+        LocalDateTime after = request.getAfter() != null ? request.getAfter() : LocalDateTime.now();
+        LocalDateTime before = after.plusDays(request.getHorizonDays());
+
+        // 1. Intervalos livres ordenados de cada recurso (consulta indexada por recurso)
+        List<List<LocalDateTime[]>> perResource = new ArrayList<>();
+        for (ResourceRefDTO resource : request.getResources()) {
+            List<LocalDateTime[]> intervals = historicalSlotRepository.findMergedAvailableIntervals(
+                resource.getResourceType(), resource.getResourceId(), after, before);
+            if (intervals.isEmpty()) {
+                return List.of(); // Um recurso sem horários livres esvazia a interseção
+            }
+            perResource.add(intervals);
+        }
+
+        // 2. Interseção k-way das listas
+        return JointWindowMerge.intersect(
+            perResource, Duration.ofMinutes(request.getDurationMinutes()), request.getLimit());
     }
 
     /**
@@ -98,58 +237,165 @@ public class SlotService {
     }
 
     /**
-     * Reserva um slot para um agendamento
+     * Reserva um slot para um agendamento. Um slot seguro por um hold só é reservado pelo dono
+     * do token (confirmHold). A disponibilidade é verificada pelo próprio UPDATE condicional,
+     * então entre requisições concorrentes exatamente uma vence; as demais recebem false após
+     * esse único comando. Só o vencedor lê a linha reservada, para auditoria, sumários e eventos.
      */
     @Transactional
     public boolean bookSlot(
             Long slotId, Long bookingId, String modifiedBy, String reason) {
 
-        // Buscar detalhes do slot
-        Map<String, Object> slotData = findSlotById(slotId);
-        if (slotData == null) {
+        if (holdStore.getHolder(slotId) != null) {
             return false;
         }
+        return book(slotId, bookingId, modifiedBy, reason);
+    }
 
-        // Verificar se slot está disponível
-        String currentStatus = (String) slotData.get("status");
-        if (!"AVAILABLE".equals(currentStatus)) {
+    private boolean book(Long slotId, Long bookingId, String modifiedBy, String reason) {
+        // 1. Reservar (compare-and-set no banco, sem consultar o cache)
+        if (!historicalSlotRepository.bookSlot(slotId, bookingId, reason, modifiedBy)) {
             return false;
         }
 
-        // Atualizar o slot usando o repositório histórico
-        boolean updated = historicalSlotRepository.updateHistoricalSlotStatus(
-            slotId, "BOOKED", bookingId, reason, modifiedBy);
+        // 2. Estado após a reserva (lido só pelo vencedor); slots com capacidade guardam o
+        // agendamento no vínculo
+        Map<String, Object> slotData = historicalSlotRepository.findSlotForBooking("time_slot", slotId);
+        historicalSlotRepository.recordCapacityBookings(List.of(slotData), "time_slot", bookingId);
 
-        if (updated) {
-            // Registrar alteração para auditoria
-            historicalSlotRepository.logRetroactiveChange(
-                slotId,
-                historicalSlotRepository.determineSlotTableName(slotId),
-                modifiedBy,
-                currentStatus,
-                "BOOKED",
-                reason,
-                (String) slotData.get("resource_type"),
-                (Long) slotData.get("resource_id"),
-                (Long) slotData.get("tenant_id"),
-                LocalDateTime.parse((String) slotData.get("start_time"))
-            );
+        // 3. Auditoria, sumários e eventos
+        recordSlotChange(slotId, "time_slot", slotData, "AVAILABLE", modifiedBy, reason);
+        return true;
+    }
 
-            // Marcar sumários para recálculo
-            LocalDateTime startTime = LocalDateTime.parse((String) slotData.get("start_time"));
+    /**
+     * Cancela a reserva de um agendamento em um slot da tabela principal. Slots comuns voltam a
+     * AVAILABLE; slots com capacidade devolvem uma vaga (booked_count - 1) e, se estavam lotados,
+     * voltam a AVAILABLE. Retorna false se o agendamento não está reservado no slot e lança
+     * IllegalStateException (desfazendo a transação) se o vínculo não tem vaga correspondente.
+     */
+    @Transactional
+    public boolean cancelBooking(Long slotId, Long bookingId, String modifiedBy, String reason) {
+        // 1. Slot comum reservado pelo agendamento ou, senão, vaga em um slot com capacidade
+        boolean seatReleased = false;
+        if (!historicalSlotRepository.cancelBooking(slotId, bookingId, reason, modifiedBy)) {
+            if (!historicalSlotRepository.releaseCapacitySeat(slotId, bookingId, reason, modifiedBy)) {
+                return false;
+            }
+            seatReleased = true;
+        }
+
+        // 2. Auditoria, sumários e eventos; um slot com capacidade só estava BOOKED se lotado
+        Map<String, Object> slotData = historicalSlotRepository.findSlotForBooking("time_slot", slotId);
+        String fromStatus = "BOOKED";
+        if (seatReleased) {
+            boolean wasFull = (int) slotData.get("booked_count") + 1 >= (int) slotData.get("capacity");
+            fromStatus = wasFull && "AVAILABLE".equals(slotData.get("status"))
+                ? "BOOKED" : (String) slotData.get("status");
+        }
+        recordSlotChange(slotId, "time_slot", slotData, fromStatus, modifiedBy, reason);
+        return true;
+    }
+
+    /**
+     * Audita a alteração de um slot (status final lido da linha), marca o sumário do mês para
+     * recálculo, invalida o cache e publica o evento
+     */
+    private void recordSlotChange(
+            Long slotId, String tableName, Map<String, Object> slotData,
+            String fromStatus, String modifiedBy, String reason) {
+
+        LocalDateTime startTime = (LocalDateTime) slotData.get("start_time");
+        historicalSlotRepository.logRetroactiveChange(
+            slotId,
+            tableName,
+            modifiedBy,
+            fromStatus,
+            (String) slotData.get("status"),
+            reason,
+            (String) slotData.get("resource_type"),
+            (Long) slotData.get("resource_id"),
+            (Long) slotData.get("tenant_id"),
+            startTime
+        );
+
+        occupancySummaryRepository.markSummaryForRecalculation(
+            (String) slotData.get("resource_type"),
+            (Long) slotData.get("resource_id"),
+            (Long) slotData.get("tenant_id"),
+            startTime.getYear(),
+            startTime.getMonthValue()
+        );
+
+        invalidateSlotCache(slotId);
+        changePublisher.slotChanged(slotId, (Long) slotData.get("resource_id"), startTime);
+    }
+
+    /**
+     * Reserva vários slots para o mesmo agendamento (procedimentos longos), todos ou nenhum:
+     * um único UPDATE condicional reserva o conjunto e, se algum slot não estava livre ou está
+     * seguro por um hold, a operação falha com IllegalStateException (desfazendo a transação). Auditoria em um lote, uma marcação de
+     * sumário por mês afetado e um evento por recurso.
+     */
+    @Transactional
+    public void bookSlots(List<Long> slotIds, Long bookingId, String modifiedBy, String reason) {
+        if (slotIds == null || slotIds.isEmpty() || slotIds.size() > MAX_BATCH_BOOKING_SLOTS
+                || slotIds.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException(
+                "Batch booking needs between 1 and " + MAX_BATCH_BOOKING_SLOTS + " slot ids");
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(slotIds));
+
+        // 1. Slots seguros por um hold ficam com o dono do token
+        Set<Long> held = holdStore.findHeld(ids);
+        if (!held.isEmpty()) {
+            throw new IllegalStateException(held.size() + " of " + ids.size() + " slots are on hold");
+        }
+
+        // 2. Reservar o conjunto; qualquer slot já ocupado desfaz as reservas feitas
+        int booked = historicalSlotRepository.bookSlots(ids, bookingId, reason, modifiedBy);
+        if (booked != ids.size()) {
+            throw new IllegalStateException(
+                (ids.size() - booked) + " of " + ids.size() + " slots are not available");
+        }
+
+        // 3. Vínculos dos slots com capacidade e auditoria em lote, com o status final de cada slot
+        List<Map<String, Object>> slots = historicalSlotRepository.findSlotsByIds(ids);
+        historicalSlotRepository.recordCapacityBookings(slots, "time_slot", bookingId);
+        historicalSlotRepository.logRetroactiveChanges(slots, "time_slot", modifiedBy, "AVAILABLE", reason);
+
+        // 4. Uma marcação de sumário por (recurso, tenant, mês) e um período alterado por recurso
+        Map<String, Map<String, Object>> months = new LinkedHashMap<>();
+        Map<Long, LocalDate[]> changedDates = new LinkedHashMap<>();
+        for (Map<String, Object> slot : slots) {
+            LocalDateTime startTime = (LocalDateTime) slot.get("start_time");
+            months.putIfAbsent(slot.get("resource_type") + ":" + slot.get("resource_id") + ":" +
+                slot.get("tenant_id") + ":" + YearMonth.from(startTime), slot);
+
+            LocalDate date = startTime.toLocalDate();
+            changedDates.merge((Long) slot.get("resource_id"), new LocalDate[] {date, date},
+                (range, day) -> new LocalDate[] {
+                    range[0].isBefore(day[0]) ? range[0] : day[0],
+                    range[1].isAfter(day[1]) ? range[1] : day[1]});
+        }
+        for (Map<String, Object> slot : months.values()) {
+            LocalDateTime startTime = (LocalDateTime) slot.get("start_time");
             occupancySummaryRepository.markSummaryForRecalculation(
-                (String) slotData.get("resource_type"),
-                (Long) slotData.get("resource_id"),
-                (Long) slotData.get("tenant_id"),
+                (String) slot.get("resource_type"),
+                (Long) slot.get("resource_id"),
+                (Long) slot.get("tenant_id"),
                 startTime.getYear(),
                 startTime.getMonthValue()
             );
-
-            // Invalidar cache
-            invalidateSlotCache(slotId);
         }
 
-        return updated;
+        // 5. Invalidar caches e notificar
+        List<String> cacheKeys = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            cacheKeys.add("slot:" + id);
+        }
+        redisTemplate.delete(cacheKeys);
+        changedDates.forEach((resourceId, range) -> changePublisher.slotsChanged(resourceId, range[0], range[1]));
     }
 
     /**
@@ -196,11 +442,66 @@ public class SlotService {
 
             // Invalidar cache
             invalidateSlotCache(slotId);
+            changePublisher.slotChanged(slotId, (Long) slotData.get("resource_id"), startTime);
         }
 
         return updated;
     }
 
+    /**
+     * Remove as entradas "nextSlots:" do recurso cuja data de consulta é anterior ou igual
+     * ao fim do período alterado; consultas posteriores ao período não são afetadas
+     */
+    @EventListener
+    public void onAvailabilityChange(AvailabilityChangeEvent event) {
+        String pattern = "nextSlots:*:" + (event.getResourceId() != null ? event.getResourceId() : "*") + ":*";
+        List<String> staleKeys = new ArrayList<>();
+
+        try (Cursor<String> keys = redisTemplate.scan(ScanOptions.scanOptions().match(pattern).count(500).build())) {
+            while (keys.hasNext()) {
+                String key = keys.next();
+                // Formato: nextSlots:{tipo}:{recurso}:{data}:{serviço}
+                String[] parts = key.split(":");
+                if (parts.length < 4) {
+                    continue;
+                }
+                if (event.getToDate() == null || !LocalDate.parse(parts[3]).isAfter(event.getToDate())) {
+                    staleKeys.add(key);
+                }
+            }
+        }
+
+        if (!staleKeys.isEmpty()) {
+            redisTemplate.delete(staleKeys);
+        }
+    }
+
+    /**
+     * Remove da lista os slots seguros por um hold (uma consulta para todos)
+     */
+    private List<Map<String, Object>> withoutHeldSlots(List<Map<String, Object>> slots) {
+        if (slots.isEmpty()) {
+            return slots;
+        }
+
+        List<Long> ids = new ArrayList<>(slots.size());
+        for (Map<String, Object> slot : slots) {
+            ids.add(((Number) slot.get("id")).longValue());
+        }
+        Set<Long> held = holdStore.findHeld(ids);
+        if (held.isEmpty()) {
+            return slots;
+        }
+
+        List<Map<String, Object>> available = new ArrayList<>(slots.size() - held.size());
+        for (Map<String, Object> slot : slots) {
+            if (!held.contains(((Number) slot.get("id")).longValue())) {
+                available.add(slot);
+            }
+        }
+        return available;
+    }
+
     /**
      * Invalida caches relacionados a um slot
      */
@@ -0,0 +1,21 @@
+package com.clinica.availability.timeslot.service;
+
+/**
+ * Destino dos slots gerados, em minutos desde a época (horário local tratado como UTC).
+ * batchRow e batchPosition valem 0 para slots que não pertencem a um batch.
+ */
+@FunctionalInterface
+interface SlotSink {
+
+    void accept(long startMinute, long endMinute, int batchRow, int batchPosition);
+
+    /**
+     * Janela que comporta "capacity" atendimentos simultâneos. Por padrão vira "capacity"
+     * linhas iguais; destinos em modo capacidade gravam uma linha só com o contador.
+     */
+    default void accept(long startMinute, long endMinute, int batchRow, int batchPosition, int capacity) {
+        for (int i = 0; i < capacity; i++) {
+            accept(startMinute, endMinute, batchRow, batchPosition);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.clinica.availability.service;
+
+import com.clinica.availability.model.AvailabilityException;
+import com.clinica.availability.model.AvailabilityRule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AvailabilityIndexTest {
+
+    private static final LocalDate MONDAY = LocalDate.parse("2024-01-01");
+    private static final LocalDate TUESDAY = LocalDate.parse("2024-01-02");
+
+    private AvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new AvailabilityIndex();
+        index.rebuild(List.of(rule(1L, "MONDAY", "09:00", "12:00")), List.of(), List.of(), List.of());
+    }
+
+    @Test
+    void testGetDayBitmap_cachedUntilMutation() {
+        ResourceDayBitmap first = index.getDayBitmap(1L, MONDAY);
+
+        assertSame(first, index.getDayBitmap(1L, MONDAY));
+        assertTrue(MinuteBitmap.allSet(first.getRuleBits(), 9 * 60, 12 * 60));
+        assertFalse(MinuteBitmap.anySet(first.getRuleBits(), 12 * 60, 14 * 60));
+    }
+
+    @Test
+    void testPutRule_invalidatesOnlyAffectedWeekdays() {
+        ResourceDayBitmap monday = index.getDayBitmap(1L, MONDAY);
+        ResourceDayBitmap tuesday = index.getDayBitmap(1L, TUESDAY);
+
+        index.putRule(rule(1L, "MONDAY", "09:00", "14:00")); // Mesmo ID, novo horário
+
+        ResourceDayBitmap rebuilt = index.getDayBitmap(1L, MONDAY);
+        assertNotSame(monday, rebuilt);
+        assertTrue(MinuteBitmap.allSet(rebuilt.getRuleBits(), 9 * 60, 14 * 60));
+        assertSame(tuesday, index.getDayBitmap(1L, TUESDAY));
+    }
+
+    @Test
+    void testRemoveRule_clearsBitmap() {
+        index.getDayBitmap(1L, MONDAY);
+
+        index.removeRule(1L);
+
+        assertFalse(MinuteBitmap.anySet(index.getDayBitmap(1L, MONDAY).getRuleBits(), 0, 24 * 60));
+    }
+
+    @Test
+    void testSetBitmapMaxEntries_evictsOldestDay() {
+        index.setBitmapMaxEntries(2);
+        ResourceDayBitmap first = index.getDayBitmap(1L, MONDAY);
+        index.getDayBitmap(1L, MONDAY.plusWeeks(1));
+        index.getDayBitmap(1L, MONDAY.plusWeeks(2));
+
+        assertNotSame(first, index.getDayBitmap(1L, MONDAY));
+    }
+
+    @Test
+    void testPutException_readerDuringWriteDoesNotCacheStaleDay() throws Exception {
+        index.putException(exception(MONDAY.atTime(9, 0), MONDAY.atTime(10, 0)));
+
+        // A nova exceção pausa a escrita já dentro de putException até o leitor montar o dia
+        // (com a visão anterior) e ficar aguardando o monitor para guardá-lo no cache
+        CountDownLatch writing = new CountDownLatch(1);
+        AtomicReference<Thread> reader = new AtomicReference<>();
+        AvailabilityException moved = new AvailabilityException() {
+            private boolean paused;
+
+            @Override
+            public Long getResourceId() {
+                if (!paused) {
+                    paused = true;
+                    writing.countDown();
+                    awaitBlocked(reader);
+                }
+                return super.getResourceId();
+            }
+        };
+        moved.setId(10L);
+        moved.setResourceId(1L);
+        moved.setStartTime(MONDAY.atTime(14, 0));
+        moved.setEndTime(MONDAY.atTime(15, 0));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> read = executor.submit(() -> {
+            reader.set(Thread.currentThread());
+            writing.await();
+            return index.getDayBitmap(1L, MONDAY);
+        });
+        index.putException(moved);
+        read.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        long[] bits = index.getDayBitmap(1L, MONDAY).getExceptionBits();
+        assertFalse(MinuteBitmap.anySet(bits, 9 * 60, 10 * 60));
+        assertTrue(MinuteBitmap.allSet(bits, 14 * 60, 15 * 60));
+    }
+
+    private static void awaitBlocked(AtomicReference<Thread> reader) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline
+                && (reader.get() == null || reader.get().getState() != Thread.State.BLOCKED)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static AvailabilityException exception(LocalDateTime start, LocalDateTime end) {
+        AvailabilityException exception = new AvailabilityException();
+        exception.setId(10L);
+        exception.setResourceId(1L);
+        exception.setStartTime(start);
+        exception.setEndTime(end);
+        return exception;
+    }
+
+    private static AvailabilityRule rule(Long id, String dayOfWeek, String start, String end) {
+        AvailabilityRule rule = new AvailabilityRule();
+        rule.setId(id);
+        rule.setResourceId(1L);
+        rule.setDayOfWeek(dayOfWeek);
+        rule.setStartTime(start);
+        rule.setEndTime(end);
+        return rule;
+    }
+}
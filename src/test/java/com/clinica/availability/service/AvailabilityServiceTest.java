@@ -2,10 +2,13 @@ package com.clinica.availability.service;
 
 import com.clinica.availability.dto.AvailabilityCheckRequestDTO;
 import com.clinica.availability.dto.AvailabilityResponseDTO;
+import com.clinica.availability.dto.FreeIntervalDTO;
 import com.clinica.availability.model.AvailabilityException;
+import com.clinica.availability.model.AvailabilityPattern;
 import com.clinica.availability.model.AvailabilityRule;
 import com.clinica.availability.model.ResourceAvailability;
 import com.clinica.availability.repository.ExceptionRepository;
+import com.clinica.availability.repository.PatternRepository;
 import com.clinica.availability.repository.RuleRepository;
 import com.clinica.availability.repository.ResourceAvailabilityRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,14 +16,20 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
 import java.time.DayOfWeek;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class AvailabilityServiceTest {
@@ -34,6 +43,12 @@ public class AvailabilityServiceTest {
     @Mock
     private RuleRepository ruleRepository;
 
+    @Mock
+    private PatternRepository patternRepository;
+
+    @Spy
+    private AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+
     @InjectMocks
     private AvailabilityService availabilityService;
 
@@ -65,6 +80,36 @@ public class AvailabilityServiceTest {
         assertEquals("Indisponível devido a uma exceção.", response.getMessage());
     }
 
+    @Test
+    void testCheckAvailability_partialException() {
+        // Arrange
+        AvailabilityCheckRequestDTO request = new AvailabilityCheckRequestDTO();
+        request.setResourceId(1L);
+        request.setStartTime(LocalDateTime.parse("2024-01-02T10:00:00")); // Tuesday
+        request.setEndTime(LocalDateTime.parse("2024-01-02T11:00:00"));
+
+        AvailabilityRule rule = new AvailabilityRule();
+        rule.setResourceId(1L);
+        rule.setDayOfWeek(DayOfWeek.TUESDAY.toString());
+        rule.setStartTime("09:00");
+        rule.setEndTime("12:00");
+
+        AvailabilityException exception = new AvailabilityException();
+        exception.setResourceId(1L);
+        exception.setStartTime(LocalDateTime.parse("2024-01-02T10:45:00"));
+        exception.setEndTime(LocalDateTime.parse("2024-01-02T10:50:00"));
+
+        when(ruleRepository.findAll()).thenReturn(List.of(rule));
+        when(exceptionRepository.findAll()).thenReturn(List.of(exception));
+
+        // Act
+        AvailabilityResponseDTO response = availabilityService.checkAvailability(request);
+
+        // Assert
+        assertFalse(response.isAvailable());
+        assertEquals("Indisponível devido a uma exceção.", response.getMessage());
+    }
+
     @Test
     void testCheckAvailability_rule() {
         // Arrange
@@ -89,6 +134,36 @@ public class AvailabilityServiceTest {
         assertEquals("Indisponível conforme as regras de disponibilidade.", response.getMessage());
     }
 
+    @Test
+    void testCheckAvailability_pattern() {
+        // Arrange
+        AvailabilityCheckRequestDTO request = new AvailabilityCheckRequestDTO();
+        request.setResourceId(1L);
+        request.setStartTime(LocalDateTime.parse("2024-01-02T10:00:00")); // Tuesday
+        request.setEndTime(LocalDateTime.parse("2024-01-02T11:00:00"));
+
+        AvailabilityRule rule = new AvailabilityRule();
+        rule.setResourceId(1L);
+        rule.setDayOfWeek(DayOfWeek.TUESDAY.toString());
+        rule.setStartTime("09:00");
+        rule.setEndTime("12:00");
+
+        AvailabilityPattern pattern = new AvailabilityPattern();
+        pattern.setId(1L);
+        pattern.setName("Reunião semanal");
+        pattern.setCronExpression("30 10 * * TUE");
+
+        when(ruleRepository.findAll()).thenReturn(List.of(rule));
+        when(patternRepository.findAll()).thenReturn(List.of(pattern));
+
+        // Act
+        AvailabilityResponseDTO response = availabilityService.checkAvailability(request);
+
+        // Assert
+        assertFalse(response.isAvailable());
+        assertEquals("Indisponível devido a um padrão de recorrência.", response.getMessage());
+    }
+
     @Test
     void testCheckAvailability_specificAvailability() {
         // Arrange
@@ -136,4 +211,155 @@ public class AvailabilityServiceTest {
         assertTrue(response.isAvailable());
         assertEquals("Disponível.", response.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCheckAvailabilityBatch_keepsRequestOrder() {
+        // Arrange
+        AvailabilityCheckRequestDTO insideRule = new AvailabilityCheckRequestDTO();
+        insideRule.setResourceId(1L);
+        insideRule.setStartTime(LocalDateTime.parse("2024-01-02T10:00:00")); // Tuesday
+        insideRule.setEndTime(LocalDateTime.parse("2024-01-02T11:00:00"));
+
+        AvailabilityCheckRequestDTO otherResource = new AvailabilityCheckRequestDTO();
+        otherResource.setResourceId(2L);
+        otherResource.setStartTime(LocalDateTime.parse("2024-01-02T10:00:00"));
+        otherResource.setEndTime(LocalDateTime.parse("2024-01-02T11:00:00"));
+
+        AvailabilityCheckRequestDTO outsideRule = new AvailabilityCheckRequestDTO();
+        outsideRule.setResourceId(1L);
+        outsideRule.setStartTime(LocalDateTime.parse("2024-01-02T13:00:00"));
+        outsideRule.setEndTime(LocalDateTime.parse("2024-01-02T14:00:00"));
+
+        AvailabilityRule rule = new AvailabilityRule();
+        rule.setResourceId(1L);
+        rule.setDayOfWeek(DayOfWeek.TUESDAY.toString());
+        rule.setStartTime("09:00");
+        rule.setEndTime("12:00");
+
+        when(ruleRepository.findAll()).thenReturn(List.of(rule));
+
+        // Act
+        List<AvailabilityResponseDTO> responses = availabilityService.checkAvailabilityBatch(
+                List.of(insideRule, otherResource, outsideRule));
+
+        // Assert
+        assertEquals(3, responses.size());
+        assertTrue(responses.get(0).isAvailable());
+        assertFalse(responses.get(1).isAvailable());
+        assertFalse(responses.get(2).isAvailable());
+        assertEquals("Indisponível conforme as regras de disponibilidade.", responses.get(2).getMessage());
+    }
+
+    @Test
+    void testFindFreeIntervals_subtractsBlocks() {
+        // Arrange
+        AvailabilityRule rule = new AvailabilityRule();
+        rule.setResourceId(1L);
+        rule.setDayOfWeek("MONDAY,TUESDAY");
+        rule.setStartTime("09:00");
+        rule.setEndTime("12:00");
+
+        AvailabilityException exception = new AvailabilityException();
+        exception.setResourceId(1L);
+        exception.setStartTime(LocalDateTime.parse("2024-01-01T10:00:00")); // Monday
+        exception.setEndTime(LocalDateTime.parse("2024-01-01T10:30:00"));
+
+        when(ruleRepository.findAll()).thenReturn(List.of(rule));
+        when(exceptionRepository.findAll()).thenReturn(List.of(exception));
+
+        // Act
+        List<FreeIntervalDTO> free = availabilityService.findFreeIntervals(1L,
+                LocalDateTime.parse("2024-01-01T00:00:00"), LocalDateTime.parse("2024-01-02T11:00:00"));
+
+        // Assert
+        assertEquals(3, free.size());
+        assertEquals(LocalDateTime.parse("2024-01-01T09:00:00"), free.get(0).getStartTime());
+        assertEquals(LocalDateTime.parse("2024-01-01T10:00:00"), free.get(0).getEndTime());
+        assertEquals(LocalDateTime.parse("2024-01-01T10:30:00"), free.get(1).getStartTime());
+        assertEquals(LocalDateTime.parse("2024-01-01T12:00:00"), free.get(1).getEndTime());
+        assertEquals(LocalDateTime.parse("2024-01-02T09:00:00"), free.get(2).getStartTime());
+        assertEquals(LocalDateTime.parse("2024-01-02T11:00:00"), free.get(2).getEndTime());
+    }
+
+    @Test
+    void testCheckAvailability_longWindowSkipsDayBitmaps() {
+        // Arrange
+        AvailabilityCheckRequestDTO request = new AvailabilityCheckRequestDTO();
+        request.setResourceId(1L);
+        request.setStartTime(LocalDateTime.parse("2024-01-02T10:00:00"));
+        request.setEndTime(LocalDateTime.parse("2027-01-02T10:00:00"));
+
+        AvailabilityException exception = new AvailabilityException();
+        exception.setResourceId(1L);
+        exception.setStartTime(LocalDateTime.parse("2026-06-01T10:00:00"));
+        exception.setEndTime(LocalDateTime.parse("2026-06-01T11:00:00"));
+
+        when(exceptionRepository.findAll()).thenReturn(List.of(exception));
+
+        // Act
+        AvailabilityResponseDTO response = availabilityService.checkAvailability(request);
+
+        // Assert
+        assertFalse(response.isAvailable());
+        assertEquals("Indisponível devido a uma exceção.", response.getMessage());
+        verify(availabilityIndex, never()).getDayBitmap(any(), any());
+    }
+
+    @Test
+    void testCheckAvailability_longWindowMatchesDayBitmaps() {
+        // Arrange
+        Random random = new Random(5);
+        LocalDateTime base = LocalDateTime.parse("2024-01-01T00:00:00");
+
+        AvailabilityRule rule = new AvailabilityRule();
+        rule.setResourceId(1L);
+        rule.setDayOfWeek("MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY,SATURDAY,SUNDAY");
+        rule.setStartTime("00:00");
+        rule.setEndTime("23:59");
+
+        List<AvailabilityException> exceptions = new ArrayList<>();
+        List<ResourceAvailability> periods = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            LocalDateTime start = base.plusMinutes(random.nextInt(365 * 24 * 60)).plusSeconds(random.nextInt(60));
+            AvailabilityException exception = new AvailabilityException();
+            exception.setResourceId(1L);
+            exception.setStartTime(start);
+            exception.setEndTime(start.plusMinutes(random.nextInt(240)));
+            exceptions.add(exception);
+
+            ResourceAvailability period = new ResourceAvailability();
+            period.setResourceId(1L);
+            period.setStartTime(start.plusDays(3));
+            period.setEndTime(start.plusDays(3).plusMinutes(1 + random.nextInt(240)));
+            period.setAvailable(false);
+            periods.add(period);
+        }
+
+        AvailabilityPattern pattern = new AvailabilityPattern();
+        pattern.setId(1L);
+        pattern.setName("Manutenção mensal");
+        pattern.setCronExpression("0 3 1 * *");
+
+        when(ruleRepository.findAll()).thenReturn(List.of(rule));
+        when(exceptionRepository.findAll()).thenReturn(exceptions);
+        when(availabilityRepository.findAll()).thenReturn(periods);
+        when(patternRepository.findAll()).thenReturn(List.of(pattern));
+
+        for (int round = 0; round < 500; round++) {
+            AvailabilityCheckRequestDTO request = new AvailabilityCheckRequestDTO();
+            request.setResourceId(1L);
+            LocalDateTime start = base.plusMinutes(random.nextInt(365 * 24 * 60)).plusSeconds(random.nextInt(60));
+            request.setStartTime(start);
+            request.setEndTime(start.plusMinutes(1 + random.nextInt(random.nextBoolean() ? 600 : 3 * 24 * 60)));
+
+            // Act
+            availabilityIndex.setBitmapMaxWindowDays(Integer.MAX_VALUE);
+            AvailabilityResponseDTO expected = availabilityService.checkAvailability(request);
+            availabilityIndex.setBitmapMaxWindowDays(0);
+            AvailabilityResponseDTO actual = availabilityService.checkAvailability(request);
+
+            // Assert
+            assertEquals(expected.getMessage(), actual.getMessage(), "round " + round);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.clinica.availability.service;
+
+import com.clinica.availability.model.AvailabilityPattern;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledPatternTest {
+
+    @Test
+    void testOccursBetween_halfOpenWindow() {
+        CompiledPattern pattern = compile("0 12 * * MON-FRI"); // Meio-dia em dias úteis
+
+        assertTrue(pattern.occursBetween(
+                LocalDateTime.parse("2024-01-02T11:30:00"), LocalDateTime.parse("2024-01-02T12:30:00")));
+        assertTrue(pattern.occursBetween(
+                LocalDateTime.parse("2024-01-02T12:00:00"), LocalDateTime.parse("2024-01-02T12:00:30")));
+        assertFalse(pattern.occursBetween(
+                LocalDateTime.parse("2024-01-02T11:00:00"), LocalDateTime.parse("2024-01-02T12:00:00")));
+        assertFalse(pattern.occursBetween(
+                LocalDateTime.parse("2024-01-02T12:00:01"), LocalDateTime.parse("2024-01-02T13:00:00")));
+        assertFalse(pattern.occursBetween(
+                LocalDateTime.parse("2024-01-06T11:00:00"), LocalDateTime.parse("2024-01-06T13:00:00"))); // Sábado
+    }
+
+    @Test
+    void testOccursBetween_acrossMidnight() {
+        CompiledPattern pattern = compile("0 0 1 * *"); // Meia-noite do dia 1
+
+        assertTrue(pattern.occursBetween(
+                LocalDateTime.parse("2024-01-31T23:00:00"), LocalDateTime.parse("2024-02-01T00:30:00")));
+        assertFalse(pattern.occursBetween(
+                LocalDateTime.parse("2024-01-31T23:00:00"), LocalDateTime.parse("2024-02-01T00:00:00")));
+    }
+
+    @Test
+    void testOccursBetween_matchesNextOccurrence() {
+        String[] expressions = {"*/15 8-18 * * MON-FRI", "30 14 29 FEB *", "0 9 13 * FRI", "* * * * *", "5 0 * JAN SUN"};
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.parse("2024-01-01T00:00:00");
+
+        for (String expression : expressions) {
+            CronMatcher matcher = CronMatcher.compile(expression);
+            CompiledPattern pattern = compile(expression);
+            for (int i = 0; i < 2000; i++) {
+                LocalDateTime start = base.plusSeconds(random.nextInt(400 * 24 * 3600));
+                LocalDateTime end = start.plusSeconds(random.nextInt(3 * 24 * 3600));
+                LocalDateTime next = matcher.nextOccurrence(start);
+                assertEquals(next != null && next.isBefore(end), pattern.occursBetween(start, end),
+                        expression + " " + start + " " + end);
+            }
+        }
+    }
+
+    @Test
+    void testMinutesOn() {
+        CompiledPattern pattern = compile("*/30 9 * * TUE");
+
+        long[] minutes = pattern.minutesOn(LocalDate.parse("2024-01-02"));
+        assertNotNull(minutes);
+        assertTrue(MinuteBitmap.allSet(minutes, 540, 541));
+        assertTrue(MinuteBitmap.allSet(minutes, 570, 571));
+        assertFalse(MinuteBitmap.anySet(minutes, 541, 570));
+        assertFalse(MinuteBitmap.anySet(minutes, 571, MinuteBitmap.MINUTES_PER_DAY));
+        assertNull(pattern.minutesOn(LocalDate.parse("2024-01-03")));
+    }
+
+    private static CompiledPattern compile(String expression) {
+        AvailabilityPattern pattern = new AvailabilityPattern();
+        pattern.setId(1L);
+        pattern.setCronExpression(expression);
+        return CompiledPattern.compile(pattern);
+    }
+}
@@ -0,0 +1,53 @@
+package com.clinica.availability.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CronMatcherTest {
+
+    @Test
+    void testMatches_weekdaysLunchBreak() {
+        CronMatcher matcher = CronMatcher.compile("*/15 12 * * MON-FRI");
+
+        assertTrue(matcher.matches(LocalDateTime.parse("2024-01-02T12:30:00"))); // Tuesday
+        assertFalse(matcher.matches(LocalDateTime.parse("2024-01-02T12:10:00")));
+        assertFalse(matcher.matches(LocalDateTime.parse("2024-01-06T12:30:00"))); // Saturday
+    }
+
+    @Test
+    void testMatches_springSixFieldFormat() {
+        CronMatcher matcher = CronMatcher.compile("0 0 8 1 * ?");
+
+        assertTrue(matcher.matches(LocalDateTime.parse("2024-03-01T08:00:00")));
+        assertFalse(matcher.matches(LocalDateTime.parse("2024-03-02T08:00:00")));
+    }
+
+    @Test
+    void testMatches_dayOfMonthOrDayOfWeek() {
+        // Com os dois campos restritos, qualquer um deles basta
+        CronMatcher matcher = CronMatcher.compile("0 9 13 * FRI");
+
+        assertTrue(matcher.matches(LocalDateTime.parse("2024-02-13T09:00:00"))); // Tuesday the 13th
+        assertTrue(matcher.matches(LocalDateTime.parse("2024-02-16T09:00:00"))); // Friday
+        assertFalse(matcher.matches(LocalDateTime.parse("2024-02-14T09:00:00")));
+    }
+
+    @Test
+    void testNextOccurrence() {
+        CronMatcher matcher = CronMatcher.compile("30 14 29 FEB *");
+
+        assertEquals(LocalDateTime.parse("2024-02-29T14:30:00"),
+                matcher.nextOccurrence(LocalDateTime.parse("2021-06-10T10:00:00")));
+        assertEquals(LocalDateTime.parse("2028-02-29T14:30:00"),
+                matcher.nextOccurrence(LocalDateTime.parse("2024-02-29T14:30:01")));
+    }
+
+    @Test
+    void testCompile_invalidExpression() {
+        assertThrows(IllegalArgumentException.class, () -> CronMatcher.compile("61 * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronMatcher.compile("* * *"));
+    }
+}
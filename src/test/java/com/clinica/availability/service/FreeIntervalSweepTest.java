@@ -0,0 +1,120 @@
+package com.clinica.availability.service;
+
+import com.clinica.availability.dto.FreeIntervalDTO;
+import com.clinica.availability.model.AvailabilityException;
+import com.clinica.availability.model.AvailabilityPattern;
+import com.clinica.availability.model.AvailabilityRule;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FreeIntervalSweepTest {
+
+    private static final LocalDateTime START = LocalDateTime.parse("2024-01-01T00:00:00"); // Monday
+
+    @Test
+    void testCompute_densePatternOverNinetyDays() {
+        ResourceSchedule schedule = schedule(List.of(), "08:00", "18:00");
+        List<CompiledPattern> patterns = List.of(pattern("*/5 * * * *"));
+
+        long started = System.nanoTime();
+        List<FreeIntervalDTO> free = FreeIntervalSweep.compute(schedule, patterns, START, START.plusDays(90));
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        // 90 dias x 10 h x 12 blocos de 4 minutos entre as ocorrências
+        assertEquals(90 * 10 * 12, free.size());
+        assertEquals(LocalDateTime.parse("2024-01-01T08:01:00"), free.get(0).getStartTime());
+        assertEquals(LocalDateTime.parse("2024-01-01T08:05:00"), free.get(0).getEndTime());
+        assertTrue(elapsedMillis < 1000, "sweep took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void testCompute_matchesMinuteByMinuteReference() {
+        List<AvailabilityException> exceptions = new ArrayList<>();
+        exceptions.add(exception("2024-01-02T10:30:00", "2024-01-02T11:15:30"));
+        exceptions.add(exception("2024-01-03T17:00:00", "2024-01-04T09:10:00"));
+        ResourceSchedule schedule = schedule(exceptions, "08:00", "18:00", "20:00", "23:59");
+        List<CompiledPattern> patterns = List.of(
+                pattern("*/15 12 * * MON-FRI"), pattern("0 0 * * *"), pattern("0-10 9 2 * *"));
+
+        LocalDateTime start = LocalDateTime.parse("2024-01-01T07:30:20");
+        LocalDateTime end = LocalDateTime.parse("2024-01-06T21:00:00");
+        assertEquals(reference(schedule, patterns, start, end),
+                toMinutes(FreeIntervalSweep.compute(schedule, patterns, start, end)));
+    }
+
+    /**
+     * Minutos livres calculados um a um: coberto por regra, fora de exceções e sem ocorrência de padrão
+     */
+    private static List<String> reference(ResourceSchedule schedule, List<CompiledPattern> patterns,
+                                          LocalDateTime start, LocalDateTime end) {
+        List<String> free = new ArrayList<>();
+        LocalDateTime minute = start.withSecond(0).isBefore(start) ? start.withSecond(0).plusMinutes(1) : start;
+        LocalDateTime openSince = null;
+        for (; !minute.plusMinutes(1).isAfter(end); minute = minute.plusMinutes(1)) {
+            LocalDateTime current = minute;
+            int minuteOfDay = current.getHour() * 60 + current.getMinute();
+            boolean covered = MinuteBitmap.allSet(
+                    ResourceDayBitmap.build(schedule, current.toLocalDate()).getRuleBits(), minuteOfDay, minuteOfDay + 1);
+            boolean[] blocked = {false};
+            schedule.forEachException(current, current.plusMinutes(1), exception -> blocked[0] = true);
+            boolean patternOccurs = patterns.stream().anyMatch(p -> p.occursBetween(current, current.plusMinutes(1)));
+
+            boolean isFree = covered && !blocked[0] && !patternOccurs;
+            if (isFree && openSince == null) {
+                openSince = current;
+            } else if (!isFree && openSince != null) {
+                free.add(openSince + "/" + current);
+                openSince = null;
+            }
+        }
+        if (openSince != null) {
+            free.add(openSince + "/" + minute);
+        }
+        return free;
+    }
+
+    private static List<String> toMinutes(List<FreeIntervalDTO> intervals) {
+        List<String> result = new ArrayList<>();
+        for (FreeIntervalDTO interval : intervals) {
+            result.add(interval.getStartTime() + "/" + interval.getEndTime());
+        }
+        return result;
+    }
+
+    private static ResourceSchedule schedule(List<AvailabilityException> exceptions, String... windows) {
+        List<AvailabilityRule> rules = new ArrayList<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (int i = 0; i < windows.length; i += 2) {
+                AvailabilityRule rule = new AvailabilityRule();
+                rule.setId((long) rules.size());
+                rule.setResourceId(1L);
+                rule.setDayOfWeek(day.toString());
+                rule.setStartTime(windows[i]);
+                rule.setEndTime(windows[i + 1]);
+                rules.add(rule);
+            }
+        }
+        return ResourceSchedule.build(CompiledRuleSet.compile(rules), exceptions, List.of());
+    }
+
+    private static AvailabilityException exception(String start, String end) {
+        AvailabilityException exception = new AvailabilityException();
+        exception.setResourceId(1L);
+        exception.setStartTime(LocalDateTime.parse(start));
+        exception.setEndTime(LocalDateTime.parse(end));
+        return exception;
+    }
+
+    private static CompiledPattern pattern(String expression) {
+        AvailabilityPattern pattern = new AvailabilityPattern();
+        pattern.setId((long) expression.hashCode());
+        pattern.setCronExpression(expression);
+        return CompiledPattern.compile(pattern);
+    }
+}
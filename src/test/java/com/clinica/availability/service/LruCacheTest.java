@@ -0,0 +1,50 @@
+package com.clinica.availability.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LruCacheTest {
+
+    @Test
+    void testPut_evictsLeastRecentlyUsed() {
+        LruCache<String, Integer> cache = new LruCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a"); // "b" passa a ser o menos usado
+        cache.put("c", 3);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.get("c"));
+    }
+
+    @Test
+    void testSetMaxEntries_appliesOnNextPut() {
+        LruCache<Integer, Integer> cache = new LruCache<>(10);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, i);
+        }
+
+        cache.setMaxEntries(3);
+        cache.put(10, 10);
+
+        assertNull(cache.get(0));
+        assertEquals(10, cache.get(10));
+    }
+
+    @Test
+    void testRemoveIf_keepsOtherEntries() {
+        LruCache<Integer, String> cache = new LruCache<>(10);
+        for (int i = 0; i < 6; i++) {
+            cache.put(i, "v" + i);
+        }
+
+        cache.removeIf(key -> key % 2 == 0);
+
+        assertEquals(3, cache.size());
+        assertNull(cache.get(2));
+        assertEquals("v3", cache.get(3));
+    }
+}
@@ -0,0 +1,50 @@
+package com.clinica.availability.timeslot.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveBatchSizeTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    void testConstructor_clampsInitialSize() {
+        assertEquals(250, new AdaptiveBatchSize(100, 250, 20_000, 200).current());
+        assertEquals(20_000, new AdaptiveBatchSize(50_000, 250, 20_000, 200).current());
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveBatchSize(1000, 0, 100, 200));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveBatchSize(1000, 500, 100, 200));
+    }
+
+    @Test
+    void testRecord_growsOnFastFullBatchesUpToMax() {
+        AdaptiveBatchSize size = new AdaptiveBatchSize(1000, 250, 5000, 200);
+
+        size.record(1000, 50 * MILLIS);
+        assertEquals(2000, size.current());
+        size.record(2000, 50 * MILLIS);
+        size.record(4000, 50 * MILLIS);
+        assertEquals(5000, size.current());
+    }
+
+    @Test
+    void testRecord_keepsSizeForPartialOrModerateBatches() {
+        AdaptiveBatchSize size = new AdaptiveBatchSize(1000, 250, 5000, 200);
+
+        size.record(300, 10 * MILLIS);  // Último lote parcial: rápido, mas não diz nada do tamanho
+        assertEquals(1000, size.current());
+        size.record(1000, 150 * MILLIS); // Entre metade do alvo e o alvo
+        assertEquals(1000, size.current());
+    }
+
+    @Test
+    void testRecord_shrinksOnSlowBatchesDownToMin() {
+        AdaptiveBatchSize size = new AdaptiveBatchSize(1000, 250, 5000, 200);
+
+        size.record(1000, 500 * MILLIS);
+        assertEquals(500, size.current());
+        size.record(500, 500 * MILLIS);
+        size.record(250, 500 * MILLIS);
+        assertEquals(250, size.current());
+    }
+}
@@ -0,0 +1,106 @@
+package com.clinica.availability.timeslot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchDayTemplateTest {
+
+    private static final LocalDate START = LocalDate.parse("2024-01-01");
+
+    @Test
+    void testStamp_rowsAndPositions() {
+        // 5 vagas, 2 por linha, 09:00-10:30, 20 min: 3 linhas a cada 30 min, a última com 1 posição
+        BatchDayTemplate template = BatchDayTemplate.compile(config(3, 5, 2, 20, "09:00", "10:30"));
+
+        List<long[]> slots = stamp(template, START, START.plusDays(6)); // Quarta, 2024-01-03
+        long day = LocalDate.parse("2024-01-03").toEpochDay() * SlotGenerationService.MINUTES_PER_DAY;
+
+        assertEquals(5, slots.size());
+        assertArrayEquals(new long[] {day + 540, day + 560, 1, 1}, slots.get(0));
+        assertArrayEquals(new long[] {day + 540, day + 560, 1, 2}, slots.get(1));
+        assertArrayEquals(new long[] {day + 570, day + 590, 2, 1}, slots.get(2));
+        assertArrayEquals(new long[] {day + 600, day + 620, 3, 1}, slots.get(4));
+    }
+
+    @Test
+    void testStamp_matchesPerDayGeneration() {
+        Random random = new Random(21);
+        for (int round = 0; round < 300; round++) {
+            int startMinute = random.nextInt(16) * 60;
+            Map<String, Object> config = config(random.nextInt(7), 1 + random.nextInt(40), 1 + random.nextInt(6),
+                5 + random.nextInt(90), LocalTime.MIN.plusMinutes(startMinute).toString(),
+                LocalTime.MIN.plusMinutes(startMinute + 30 + random.nextInt(480)).toString());
+            LocalDate from = START.plusDays(random.nextInt(14));
+            LocalDate to = from.plusDays(random.nextInt(40));
+
+            List<long[]> expected = perDay(config, from, to);
+            List<long[]> actual = stamp(BatchDayTemplate.compile(config), from, to);
+
+            assertEquals(expected.size(), actual.size(), "round " + round);
+            for (int i = 0; i < expected.size(); i++) {
+                assertArrayEquals(expected.get(i), actual.get(i), "round " + round);
+            }
+        }
+    }
+
+    /**
+     * Geração anterior ao molde: percorre todos os dias e recalcula as linhas em cada um
+     */
+    private static List<long[]> perDay(Map<String, Object> config, LocalDate startDate, LocalDate endDate) {
+        int weekday = (Integer) config.get("weekday");
+        int totalSlots = (Integer) config.get("total_slots");
+        int parallelCapacity = (Integer) config.get("parallel_capacity");
+        int avgDuration = (Integer) config.get("avg_duration");
+        int startMinute = SlotGenerationService.minuteOfDay(((Time) config.get("start_time")).toLocalTime());
+        int endMinute = SlotGenerationService.minuteOfDay(((Time) config.get("end_time")).toLocalTime());
+        int rows = (int) Math.ceil((double) totalSlots / parallelCapacity);
+        int slotInterval = Math.max((endMinute - startMinute) / rows, avgDuration);
+
+        List<long[]> slots = new ArrayList<>();
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            if (date.getDayOfWeek().getValue() % 7 != weekday) {
+                continue;
+            }
+            long dayStartMinute = date.toEpochDay() * SlotGenerationService.MINUTES_PER_DAY;
+            for (int row = 0; row < rows; row++) {
+                int rowStart = startMinute + row * slotInterval;
+                if (rowStart >= endMinute) {
+                    break;
+                }
+                int rowEnd = Math.min(rowStart + avgDuration, endMinute);
+                int slotsInThisRow = Math.min(parallelCapacity, totalSlots - row * parallelCapacity);
+                for (int pos = 0; pos < slotsInThisRow; pos++) {
+                    slots.add(new long[] {dayStartMinute + rowStart, dayStartMinute + rowEnd, row + 1, pos + 1});
+                }
+            }
+        }
+        return slots;
+    }
+
+    private static List<long[]> stamp(BatchDayTemplate template, LocalDate startDate, LocalDate endDate) {
+        List<long[]> slots = new ArrayList<>();
+        template.stamp(startDate, endDate,
+            (start, end, batchRow, batchPosition) -> slots.add(new long[] {start, end, batchRow, batchPosition}));
+        return slots;
+    }
+
+    private static Map<String, Object> config(int weekday, int totalSlots, int parallelCapacity,
+                                              int avgDuration, String start, String end) {
+        return Map.of(
+            "weekday", weekday,
+            "total_slots", totalSlots,
+            "parallel_capacity", parallelCapacity,
+            "avg_duration", avgDuration,
+            "start_time", Time.valueOf(LocalTime.parse(start)),
+            "end_time", Time.valueOf(LocalTime.parse(end)));
+    }
+}
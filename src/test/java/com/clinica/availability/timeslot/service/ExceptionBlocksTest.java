@@ -0,0 +1,98 @@
+package com.clinica.availability.timeslot.service;
+
+import com.clinica.availability.timeslot.service.ExceptionBlocks.PartialOverlapPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExceptionBlocksTest {
+
+    @Test
+    void testFind_keepAvailableOnlyBlocksCoveredSlots() {
+        ExceptionBlocks blocks = blocks(PartialOverlapPolicy.KEEP_AVAILABLE, 100, 200, 150, 400);
+
+        assertTrue(blocks.find(100, 130) >= 0);
+        assertTrue(blocks.find(300, 400) >= 0);
+        assertEquals(-1, blocks.find(90, 110));   // Parcial
+        assertEquals(-1, blocks.find(390, 420));  // Parcial
+        assertEquals(-1, blocks.find(400, 430));  // Fim exclusivo
+        assertEquals(-1, blocks.find(60, 100));   // Início exclusivo
+    }
+
+    @Test
+    void testFind_blockIncludesPartialOverlaps() {
+        ExceptionBlocks blocks = blocks(PartialOverlapPolicy.BLOCK, 100, 200, 150, 400);
+
+        assertTrue(blocks.find(90, 110) >= 0);
+        assertTrue(blocks.find(390, 420) >= 0);
+        assertEquals(-1, blocks.find(400, 430));
+        assertEquals(-1, blocks.find(60, 100));
+    }
+
+    @Test
+    void testFind_coveringExceptionWinsOverPartial() {
+        List<long[]> intervals = List.of(new long[] {0, 1000}, new long[] {500, 550});
+        ExceptionBlocks blocks = ExceptionBlocks.of(intervals, List.of("Férias", "Reunião"), PartialOverlapPolicy.BLOCK);
+        SlotBuffer buffer = new SlotBuffer("DOCTOR", 1L, null, 1);
+        buffer.accept(530, 560, 0, 0); // Só a primeira cobre o slot inteiro
+
+        blocks.apply(buffer, 0);
+
+        assertTrue(buffer.isBlocked(0));
+        assertEquals("Férias", buffer.getBlockingReason(0));
+    }
+
+    @Test
+    void testFind_matchesLinearScan() {
+        Random random = new Random(3);
+        for (PartialOverlapPolicy policy : PartialOverlapPolicy.values()) {
+            for (int round = 0; round < 300; round++) {
+                List<long[]> intervals = new ArrayList<>();
+                for (int i = random.nextInt(12); i > 0; i--) {
+                    long start = random.nextInt(1000);
+                    intervals.add(new long[] {start, start + 1 + random.nextInt(300)});
+                }
+                ExceptionBlocks blocks = ExceptionBlocks.of(
+                    intervals, Collections.nCopies(intervals.size(), null), policy);
+
+                for (int slot = 0; slot < 50; slot++) {
+                    long start = random.nextInt(1200);
+                    long end = start + 1 + random.nextInt(60);
+                    boolean covered = false;
+                    boolean overlapped = false;
+                    for (long[] interval : intervals) {
+                        covered |= interval[0] <= start && interval[1] >= end;
+                        overlapped |= interval[0] < end && interval[1] > start;
+                    }
+
+                    int found = blocks.find(start, end);
+                    boolean expected = policy == PartialOverlapPolicy.BLOCK ? overlapped : covered;
+                    assertEquals(expected, found >= 0, policy + " [" + start + ", " + end + ")");
+                    if (covered) {
+                        assertTrue(blocks.getEnd(found) >= end); // A exceção retornada cobre o slot
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testNone_isEmpty() {
+        assertTrue(ExceptionBlocks.none().isEmpty());
+        assertEquals(-1, ExceptionBlocks.none().find(0, 60));
+        assertSame(ExceptionBlocks.none(), ExceptionBlocks.of(List.of(), List.of(), PartialOverlapPolicy.BLOCK));
+    }
+
+    private static ExceptionBlocks blocks(PartialOverlapPolicy policy, long... bounds) {
+        List<long[]> intervals = new ArrayList<>();
+        for (int i = 0; i < bounds.length; i += 2) {
+            intervals.add(new long[] {bounds[i], bounds[i + 1]});
+        }
+        return ExceptionBlocks.of(intervals, Collections.nCopies(intervals.size(), null), policy);
+    }
+}
@@ -0,0 +1,58 @@
+package com.clinica.availability.timeslot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemorySlotHoldStoreTest {
+
+    private static final Duration MINUTE = Duration.ofMinutes(1);
+
+    private final InMemorySlotHoldStore store = new InMemorySlotHoldStore();
+
+    @Test
+    void testTryHold_onlyOneTokenWhileActive() {
+        assertTrue(store.tryHold(1L, "a", MINUTE));
+        assertFalse(store.tryHold(1L, "b", MINUTE));
+        assertFalse(store.tryHold(1L, "a", MINUTE)); // Nem o próprio token renova o hold
+        assertTrue(store.tryHold(2L, "b", MINUTE));
+    }
+
+    @Test
+    void testTryHold_expiredHoldCanBeTaken() throws InterruptedException {
+        assertTrue(store.tryHold(1L, "a", Duration.ofMillis(20)));
+        Thread.sleep(40);
+
+        assertTrue(store.tryHold(1L, "b", MINUTE));
+        assertFalse(store.release(1L, "a"));
+        assertTrue(store.release(1L, "b"));
+    }
+
+    @Test
+    void testRelease_onlyByOwner() {
+        store.tryHold(1L, "a", MINUTE);
+
+        assertFalse(store.release(1L, "b"));
+        assertEquals(Set.of(1L), store.findHeld(List.of(1L)));
+        assertEquals("a", store.getHolder(1L));
+        assertTrue(store.release(1L, "a"));
+        assertNull(store.getHolder(1L));
+        assertFalse(store.release(1L, "a")); // Já liberado
+        assertTrue(store.tryHold(1L, "b", MINUTE));
+    }
+
+    @Test
+    void testFindHeld_ignoresExpiredHolds() {
+        store.tryHold(1L, "a", MINUTE);
+        store.tryHold(2L, "b", Duration.ZERO);      // Expira na criação
+        store.tryHold(3L, "c", Duration.ofSeconds(-5));
+
+        assertEquals(Set.of(1L), store.findHeld(List.of(1L, 2L, 3L, 4L)));
+        assertNull(store.getHolder(2L));
+        assertFalse(store.release(2L, "b"));
+    }
+}
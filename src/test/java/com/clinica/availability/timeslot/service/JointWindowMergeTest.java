@@ -0,0 +1,112 @@
+package com.clinica.availability.timeslot.service;
+
+import com.clinica.availability.dto.FreeIntervalDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JointWindowMergeTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.parse("2024-01-02T00:00:00");
+
+    @Test
+    void testIntersect_threeResources() {
+        List<LocalDateTime[]> doctor = List.of(interval(8 * 60, 12 * 60), interval(14 * 60, 18 * 60));
+        List<LocalDateTime[]> room = List.of(interval(9 * 60, 10 * 60), interval(11 * 60, 15 * 60));
+        List<LocalDateTime[]> device = List.<LocalDateTime[]>of(interval(0, 24 * 60));
+
+        List<FreeIntervalDTO> windows = JointWindowMerge.intersect(
+                List.of(doctor, room, device), Duration.ofMinutes(30), 10);
+
+        assertEquals(3, windows.size());
+        assertWindow(windows.get(0), 9 * 60, 10 * 60);
+        assertWindow(windows.get(1), 11 * 60, 12 * 60);
+        assertWindow(windows.get(2), 14 * 60, 15 * 60);
+    }
+
+    @Test
+    void testIntersect_skipsShortOverlapsAndStopsAtLimit() {
+        List<LocalDateTime[]> doctor = List.of(interval(60, 120), interval(200, 400), interval(500, 700));
+        List<LocalDateTime[]> room = List.of(interval(100, 130), interval(300, 600));
+
+        List<FreeIntervalDTO> windows = JointWindowMerge.intersect(
+                List.of(doctor, room), Duration.ofMinutes(60), 1);
+
+        assertEquals(1, windows.size());
+        assertWindow(windows.get(0), 300, 400); // [100, 120) é curta demais
+    }
+
+    @Test
+    void testIntersect_resourceWithoutIntervals() {
+        List<FreeIntervalDTO> windows = JointWindowMerge.intersect(
+                List.of(List.<LocalDateTime[]>of(interval(0, 600)), List.of()), Duration.ofMinutes(15), 5);
+
+        assertTrue(windows.isEmpty());
+    }
+
+    @Test
+    void testIntersect_matchesMinuteByMinuteReference() {
+        Random random = new Random(7);
+        for (int round = 0; round < 500; round++) {
+            int k = 1 + random.nextInt(4);
+            int duration = 1 + random.nextInt(90);
+            boolean[] common = new boolean[24 * 60];
+            Arrays.fill(common, true);
+
+            List<List<LocalDateTime[]>> perResource = new ArrayList<>();
+            for (int r = 0; r < k; r++) {
+                boolean[] free = new boolean[24 * 60];
+                List<LocalDateTime[]> intervals = new ArrayList<>();
+                int minute = random.nextInt(120);
+                while (minute < 24 * 60) {
+                    int end = Math.min(24 * 60, minute + 1 + random.nextInt(180));
+                    intervals.add(interval(minute, end));
+                    Arrays.fill(free, minute, end, true);
+                    minute = end + 1 + random.nextInt(120); // Intervalos já mesclados não se tocam
+                }
+                perResource.add(intervals);
+                for (int m = 0; m < common.length; m++) {
+                    common[m] &= free[m];
+                }
+            }
+
+            List<int[]> expected = new ArrayList<>();
+            for (int m = 0; m < common.length; ) {
+                if (!common[m]) {
+                    m++;
+                    continue;
+                }
+                int start = m;
+                while (m < common.length && common[m]) {
+                    m++;
+                }
+                if (m - start >= duration) {
+                    expected.add(new int[] {start, m});
+                }
+            }
+
+            List<FreeIntervalDTO> windows = JointWindowMerge.intersect(
+                    perResource, Duration.ofMinutes(duration), Integer.MAX_VALUE);
+            assertEquals(expected.size(), windows.size(), "round " + round);
+            for (int i = 0; i < expected.size(); i++) {
+                assertWindow(windows.get(i), expected.get(i)[0], expected.get(i)[1]);
+            }
+        }
+    }
+
+    private static LocalDateTime[] interval(int startMinute, int endMinute) {
+        return new LocalDateTime[] {DAY.plusMinutes(startMinute), DAY.plusMinutes(endMinute)};
+    }
+
+    private static void assertWindow(FreeIntervalDTO window, int startMinute, int endMinute) {
+        assertEquals(DAY.plusMinutes(startMinute), window.getStartTime());
+        assertEquals(DAY.plusMinutes(endMinute), window.getEndTime());
+    }
+}
@@ -0,0 +1,67 @@
+package com.clinica.availability.timeslot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OccupancyCountersTest {
+
+    private static final LocalDate DAY = LocalDate.parse("2024-02-29");
+
+    @Test
+    void testChangedHours_groupsByHourInSummaryUnits() {
+        OccupancyCounters counters = new OccupancyCounters(DAY, DAY.plusDays(1));
+        counters.add(minute("2024-02-29T09:00"), false, 0, 1);
+        counters.add(minute("2024-02-29T09:30"), true, 0, 1);
+        counters.add(minute("2024-02-29T09:45"), false, 4, 1); // Capacidade conta como 4 unidades
+        counters.add(minute("2024-03-01T23:30"), false, 0, 1);
+
+        List<Object[]> hours = counters.changedHours();
+
+        assertEquals(2, hours.size());
+        assertArrayEquals(new Object[] {DAY, 9, 6, 5, 1}, hours.get(0));
+        assertArrayEquals(new Object[] {DAY.plusDays(1), 23, 1, 1, 0}, hours.get(1));
+    }
+
+    @Test
+    void testChangedHours_negativeDeltasAndCancellation() {
+        OccupancyCounters counters = new OccupancyCounters(DAY, DAY);
+        counters.add(minute("2024-02-29T10:00"), false, 0, 1);
+        counters.add(minute("2024-02-29T10:00"), false, 0, -1); // Inserido e removido: sem variação
+        counters.add(minute("2024-02-29T11:00"), true, 0, -1);
+
+        List<Object[]> hours = counters.changedHours();
+
+        assertEquals(1, hours.size());
+        assertArrayEquals(new Object[] {DAY, 11, -1, 0, -1}, hours.get(0));
+    }
+
+    @Test
+    void testAddAll_readsBuffer() {
+        SlotBuffer buffer = new SlotBuffer("ROOM", 1L, null, 4);
+        buffer.accept(minute("2024-02-29T08:00"), minute("2024-02-29T08:30"), 0, 0);
+        buffer.acceptWithCapacity(minute("2024-02-29T08:30"), minute("2024-02-29T09:00"), 0, 0, 3);
+        buffer.block(1, "Manutenção");
+        OccupancyCounters counters = new OccupancyCounters(DAY, DAY);
+
+        counters.addAll(buffer);
+
+        assertArrayEquals(new Object[] {DAY, 8, 4, 1, 3}, counters.changedHours().get(0));
+    }
+
+    @Test
+    void testAdd_rejectsSlotOutsidePeriod() {
+        OccupancyCounters counters = new OccupancyCounters(DAY, DAY);
+
+        assertThrows(IllegalStateException.class, () -> counters.add(minute("2024-03-01T00:00"), false, 0, 1));
+        assertThrows(IllegalStateException.class, () -> counters.add(minute("2024-02-28T23:59"), false, 0, 1));
+    }
+
+    private static long minute(String dateTime) {
+        return SlotBuffer.toEpochMinute(LocalDateTime.parse(dateTime));
+    }
+}
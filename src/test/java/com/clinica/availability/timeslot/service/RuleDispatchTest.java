@@ -0,0 +1,120 @@
+package com.clinica.availability.timeslot.service;
+
+import com.clinica.availability.model.AvailabilityRule;
+import com.clinica.availability.model.AvailabilityRule.RuleType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RuleDispatchTest {
+
+    private static final LocalDate START = LocalDate.parse("2024-01-01");
+
+    @Test
+    void testGenerate_weeklyMonthlyAndCustom() {
+        List<AvailabilityRule> rules = List.of(
+            rule(RuleType.WEEKLY, 1, 0, null, null, "08:00", "09:00", 30, 1),   // Segundas
+            rule(RuleType.MONTHLY, 0, 15, null, null, "14:00", "14:45", 20, 2),  // Dia 15, 2 por janela
+            rule(RuleType.CUSTOM, 0, 0, START.plusDays(9), START.plusDays(10), "10:00", "10:30", 30, 1));
+
+        List<long[]> slots = generate(RuleDispatch.of(rules), START, START.plusDays(30));
+
+        // 5 segundas x 2 + dia 15 (2 janelas x 2) + 2 dias personalizados
+        assertEquals(10 + 4 + 2, slots.size());
+        long jan15 = LocalDate.parse("2024-01-15").toEpochDay() * SlotGenerationService.MINUTES_PER_DAY;
+        assertEquals(4, slots.stream().filter(s -> s[0] >= jan15 + 14 * 60 && s[0] < jan15 + 15 * 60).count());
+    }
+
+    @Test
+    void testGenerate_matchesPerDayMatcher() {
+        Random random = new Random(17);
+        for (int round = 0; round < 200; round++) {
+            List<AvailabilityRule> rules = new ArrayList<>();
+            for (int i = random.nextInt(8); i >= 0; i--) {
+                RuleType type = RuleType.values()[random.nextInt(3)];
+                LocalDate customStart = START.plusDays(random.nextInt(60) - 10);
+                LocalDate customEnd = random.nextBoolean() ? null : customStart.plusDays(random.nextInt(20));
+                int startMinute = random.nextInt(20) * 30;
+                rules.add(rule(type, random.nextInt(7), 1 + random.nextInt(31), customStart, customEnd,
+                    LocalTime.MIN.plusMinutes(startMinute).toString(),
+                    LocalTime.MIN.plusMinutes(startMinute + random.nextInt(300)).toString(),
+                    15 + random.nextInt(60), 1 + random.nextInt(3)));
+            }
+            LocalDate from = START.plusDays(random.nextInt(30));
+            LocalDate to = from.plusDays(random.nextInt(45));
+
+            List<long[]> expected = perDayMatcher(rules, from, to);
+            List<long[]> actual = generate(RuleDispatch.of(rules), from, to);
+            sort(expected);
+            sort(actual);
+            assertEquals(expected.size(), actual.size(), "round " + round);
+            for (int i = 0; i < expected.size(); i++) {
+                assertArrayEquals(expected.get(i), actual.get(i), "round " + round);
+            }
+        }
+    }
+
+    /**
+     * Geração anterior aos índices: para cada dia, todas as regras são testadas
+     */
+    private static List<long[]> perDayMatcher(List<AvailabilityRule> rules, LocalDate startDate, LocalDate endDate) {
+        List<long[]> slots = new ArrayList<>();
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            int dayOfWeek = date.getDayOfWeek().getValue() % 7;
+            long dayStartMinute = date.toEpochDay() * SlotGenerationService.MINUTES_PER_DAY;
+
+            for (AvailabilityRule rule : rules) {
+                boolean applies = (rule.getRuleType() == RuleType.WEEKLY && rule.getWeekday() == dayOfWeek)
+                    || (rule.getRuleType() == RuleType.MONTHLY && rule.getDayOfMonth() == date.getDayOfMonth())
+                    || (rule.getRuleType() == RuleType.CUSTOM && !date.isBefore(rule.getStartDate())
+                        && (rule.getEndDate() == null || !date.isAfter(rule.getEndDate())));
+                if (!applies) {
+                    continue;
+                }
+                int startMinute = SlotGenerationService.minuteOfDay(rule.getStartTime());
+                int endMinute = SlotGenerationService.minuteOfDay(rule.getEndTime());
+                int duration = rule.getSlotDuration();
+                for (int slotStart = startMinute; slotStart + duration <= endMinute; slotStart += duration) {
+                    for (int i = 0; i < rule.getMaxSlots(); i++) {
+                        slots.add(new long[] {dayStartMinute + slotStart, dayStartMinute + slotStart + duration});
+                    }
+                }
+            }
+        }
+        return slots;
+    }
+
+    private static List<long[]> generate(RuleDispatch dispatch, LocalDate startDate, LocalDate endDate) {
+        List<long[]> slots = new ArrayList<>();
+        dispatch.generate(startDate, endDate, (start, end, batchRow, batchPosition) -> slots.add(new long[] {start, end}));
+        return slots;
+    }
+
+    private static void sort(List<long[]> slots) {
+        slots.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+    }
+
+    private static AvailabilityRule rule(RuleType type, int weekday, int dayOfMonth,
+                                         LocalDate startDate, LocalDate endDate,
+                                         String startTime, String endTime, int duration, int maxSlots) {
+        AvailabilityRule rule = mock(AvailabilityRule.class);
+        when(rule.getRuleType()).thenReturn(type);
+        when(rule.getWeekday()).thenReturn(weekday);
+        when(rule.getDayOfMonth()).thenReturn(dayOfMonth);
+        when(rule.getStartDate()).thenReturn(startDate);
+        when(rule.getEndDate()).thenReturn(endDate);
+        when(rule.getStartTime()).thenReturn(LocalTime.parse(startTime));
+        when(rule.getEndTime()).thenReturn(LocalTime.parse(endTime));
+        when(rule.getSlotDuration()).thenReturn(duration);
+        when(rule.getMaxSlots()).thenReturn(maxSlots);
+        return rule;
+    }
+}
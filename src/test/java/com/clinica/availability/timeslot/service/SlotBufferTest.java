@@ -0,0 +1,75 @@
+package com.clinica.availability.timeslot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlotBufferTest {
+
+    @Test
+    void testSortedOrder_matchesStableSort() {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            SlotBuffer buffer = new SlotBuffer("ROOM", 1L, null, 4); // Cresce durante o teste
+            int size = random.nextInt(300);
+            for (int i = 0; i < size; i++) {
+                long start = random.nextInt(20) * 15L; // Muitas chaves repetidas
+                buffer.accept(start, start + 15 + random.nextInt(2) * 15, random.nextInt(3), random.nextInt(3));
+            }
+
+            Integer[] expected = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                expected[i] = i;
+            }
+            Arrays.sort(expected, Comparator.comparingLong(buffer::getStartMinute)
+                .thenComparingLong(buffer::getEndMinute)
+                .thenComparingInt(buffer::getBatchRow)
+                .thenComparingInt(buffer::getBatchPosition)); // Arrays.sort de objetos é estável
+
+            assertArrayEquals(Arrays.stream(expected).mapToInt(Integer::intValue).toArray(), buffer.sortedOrder());
+        }
+    }
+
+    @Test
+    void testCompareTo_agreesWithCompare() {
+        SlotBuffer buffer = new SlotBuffer("ROOM", 1L, 5L, 16);
+        buffer.accept(100, 130, 0, 0);
+        buffer.accept(100, 130, 1, 2);
+        buffer.accept(100, 145, 0, 0);
+        buffer.accept(90, 200, 3, 1);
+
+        for (int a = 0; a < buffer.size(); a++) {
+            for (int b = 0; b < buffer.size(); b++) {
+                assertEquals(Integer.signum(buffer.compare(a, b)), Integer.signum(buffer.compareTo(a,
+                    buffer.getStartMinute(b), buffer.getEndMinute(b), buffer.getBatchRow(b), buffer.getBatchPosition(b))));
+            }
+        }
+    }
+
+    @Test
+    void testAccept_resetsBlockingAfterClear() {
+        SlotBuffer buffer = new SlotBuffer("ROOM", 1L, null, 1);
+        buffer.acceptWithCapacity(0, 30, 0, 0, 4);
+        buffer.block(0, "Feriado");
+        buffer.clear();
+        buffer.accept(60, 90, 0, 0);
+
+        assertEquals(1, buffer.size());
+        assertFalse(buffer.isBlocked(0));
+        assertNull(buffer.getBlockingReason(0));
+        assertEquals(0, buffer.getCapacity(0));
+        assertEquals(SlotBuffer.STATUS, buffer.getStatus(0));
+    }
+
+    @Test
+    void testEpochMinute_roundTrip() {
+        LocalDateTime dateTime = LocalDateTime.parse("1969-12-31T23:59:00"); // Antes da época
+        assertEquals(-1, SlotBuffer.toEpochMinute(dateTime));
+        assertEquals(dateTime, SlotBuffer.toLocalDateTime(SlotBuffer.toEpochMinute(dateTime)));
+    }
+}
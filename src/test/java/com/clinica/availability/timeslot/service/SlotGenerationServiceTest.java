@@ -0,0 +1,169 @@
+package com.clinica.availability.timeslot.service;
+
+import com.clinica.availability.event.AvailabilityChangePublisher;
+import com.clinica.availability.repository.AvailabilityRuleRepository;
+import com.clinica.availability.repository.ResourceAvailabilityRepository;
+import com.clinica.availability.timeslot.dto.RegenerationReportDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SlotGenerationServiceTest {
+
+    private static final LocalDate MONDAY = LocalDate.parse("2024-01-01");
+
+    private JdbcTemplate jdbcTemplate;
+    private SlotGenerationService service;
+    private final List<Integer> loadedBatches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // H2 em modo MySQL com as colunas usadas pela geração
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+            "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1;NON_KEYWORDS=DATE,HOUR"));
+        jdbcTemplate.execute(
+            "CREATE TABLE time_slot (id BIGINT AUTO_INCREMENT PRIMARY KEY, resource_type VARCHAR(32), " +
+            "resource_id BIGINT, tenant_id BIGINT, start_time TIMESTAMP, end_time TIMESTAMP, status VARCHAR(16), " +
+            "batch_row INT, batch_position INT, blocking_reason VARCHAR(255), capacity INT, " +
+            "booked_count INT DEFAULT 0 NOT NULL, booking_id BIGINT)");
+        jdbcTemplate.execute(
+            "CREATE TABLE slot_batch_config (pattern_id BIGINT, weekday INT, total_slots INT, " +
+            "parallel_capacity INT, avg_duration INT, start_time TIME, end_time TIME)");
+        jdbcTemplate.execute(
+            "CREATE TABLE availability_exception (resource_type VARCHAR(32), resource_id BIGINT, " +
+            "exception_type VARCHAR(16), start_datetime TIMESTAMP, end_datetime TIMESTAMP, reason VARCHAR(255))");
+        jdbcTemplate.execute(
+            "CREATE TABLE occupancy_summary (resource_type VARCHAR(32), resource_id BIGINT, date DATE, hour INT, " +
+            "total_slots INT, available_slots INT, booked_slots INT, blocked_slots INT, completed_slots INT, " +
+            "tenant_id BIGINT, needs_recalculation BOOLEAN, PRIMARY KEY (resource_type, resource_id, date, hour))");
+
+        ResourceAvailabilityRepository resourceAvailabilityRepository = mock(ResourceAvailabilityRepository.class);
+        when(resourceAvailabilityRepository.findActivePatternsByResource(anyString(), anyLong(), any(), any()))
+            .thenReturn(List.of(Map.of("pattern_id", 1L)));
+
+        service = new SlotGenerationService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "ruleRepository", mock(AvailabilityRuleRepository.class));
+        ReflectionTestUtils.setField(service, "resourceAvailabilityRepository", resourceAvailabilityRepository);
+        ReflectionTestUtils.setField(service, "changePublisher", mock(AvailabilityChangePublisher.class));
+        ReflectionTestUtils.setField(service, "partialExceptionPolicy", ExceptionBlocks.PartialOverlapPolicy.KEEP_AVAILABLE);
+        ReflectionTestUtils.setField(service, "streamedSummaries", true);
+        ReflectionTestUtils.setField(service, "bulkLoadStrategy", SlotBulkLoader.Strategy.BATCH);
+        ReflectionTestUtils.setField(service, "minBatchSize", 100);
+        ReflectionTestUtils.setField(service, "maxBatchSize", 100);
+        ReflectionTestUtils.setField(service, "targetFlushMillis", 200L);
+        service.initBulkLoad();
+
+        // Registrar o tamanho de cada lote gravado
+        SlotBulkLoader loader = (SlotBulkLoader) ReflectionTestUtils.getField(service, "bulkLoader");
+        ReflectionTestUtils.setField(service, "bulkLoader", (SlotBulkLoader) buffer -> {
+            loadedBatches.add(buffer.size());
+            loader.load(buffer);
+        });
+    }
+
+    @Test
+    void testGenerateSlotsForResource_streamsBoundedBatches() {
+        for (int weekday = 0; weekday < 7; weekday++) {
+            addBatchConfig(weekday, 40, 4, "08:00:00", "18:00:00"); // 10 linhas de 4 posições
+        }
+
+        int generated = service.generateSlotsForResource("DOCTOR", 7L, MONDAY, MONDAY.plusDays(27), null);
+
+        assertEquals(28 * 40, generated);
+        assertEquals(28 * 40, count("SELECT COUNT(*) FROM time_slot"));
+        assertEquals(12, loadedBatches.size());
+        assertTrue(loadedBatches.stream().allMatch(size -> size <= 100));
+        assertEquals(28 * 40, count("SELECT SUM(total_slots) FROM occupancy_summary"));
+        assertEquals(0, count("SELECT COUNT(*) FROM time_slot WHERE tenant_id IS NOT NULL"));
+    }
+
+    @Test
+    void testRegenerateSlotsDiff_keepsUnchangedRows() {
+        addBatchConfig(2, 4, 2, "09:00:00", "11:00:00"); // Terças: 09:00 e 10:00, 2 posições cada
+
+        RegenerationReportDTO first = service.regenerateSlotsDiff("DOCTOR", 7L, MONDAY, MONDAY.plusDays(6), 3L);
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM time_slot ORDER BY id", Long.class);
+        RegenerationReportDTO second = service.regenerateSlotsDiff("DOCTOR", 7L, MONDAY, MONDAY.plusDays(6), 3L);
+
+        assertEquals(4, first.getInserted());
+        assertEquals(0, second.getInserted());
+        assertEquals(0, second.getDeleted());
+        assertEquals(0, second.getUpdated());
+        assertEquals(4, second.getKept());
+        assertEquals(ids, jdbcTemplate.queryForList("SELECT id FROM time_slot ORDER BY id", Long.class));
+        assertEquals(4, count("SELECT SUM(total_slots) FROM occupancy_summary"));
+    }
+
+    @Test
+    void testRegenerateSlotsDiff_removesStaleAndKeepsBookings() {
+        addBatchConfig(2, 4, 2, "09:00:00", "11:00:00");
+        service.regenerateSlotsDiff("DOCTOR", 7L, MONDAY, MONDAY.plusDays(6), null);
+        long booked = jdbcTemplate.queryForObject(
+            "SELECT id FROM time_slot WHERE batch_row = 2 AND batch_position = 1", Long.class);
+        jdbcTemplate.update("UPDATE time_slot SET status = 'BOOKED' WHERE id = ?", booked);
+        // Linha duplicada da mesma chave (ex.: geração repetida antes da regeneração diferencial)
+        jdbcTemplate.update(
+            "INSERT INTO time_slot (resource_type, resource_id, start_time, end_time, status, batch_row, batch_position) " +
+            "SELECT resource_type, resource_id, start_time, end_time, status, batch_row, batch_position " +
+            "FROM time_slot WHERE batch_row = 1 AND batch_position = 1");
+
+        // Só a linha das 09:00 continua no padrão
+        jdbcTemplate.update("UPDATE slot_batch_config SET total_slots = 2");
+        RegenerationReportDTO report = service.regenerateSlotsDiff("DOCTOR", 7L, MONDAY, MONDAY.plusDays(6), null);
+
+        assertEquals(0, report.getInserted());
+        assertEquals(2, report.getDeleted()); // Duplicata e a posição livre das 10:00
+        assertEquals(3, report.getKept());
+        assertEquals("BOOKED", jdbcTemplate.queryForObject(
+            "SELECT status FROM time_slot WHERE id = ?", String.class, booked));
+        assertEquals(3, count("SELECT COUNT(*) FROM time_slot"));
+    }
+
+    @Test
+    void testRegenerateSlotsDiff_updatesBlockedStatus() {
+        addBatchConfig(2, 4, 2, "09:00:00", "11:00:00");
+        service.regenerateSlotsDiff("DOCTOR", 7L, MONDAY, MONDAY.plusDays(6), null);
+        jdbcTemplate.update(
+            "UPDATE time_slot SET status = 'BOOKED' WHERE batch_row = 1 AND batch_position = 1");
+        jdbcTemplate.update(
+            "INSERT INTO availability_exception VALUES ('DOCTOR', 7, 'BLOCK', ?, ?, 'Reunião')",
+            "2024-01-02 09:00:00", "2024-01-02 09:30:00");
+
+        RegenerationReportDTO report = service.regenerateSlotsDiff("DOCTOR", 7L, MONDAY, MONDAY.plusDays(6), null);
+
+        assertEquals(1, report.getUpdated()); // A reserva das 09:00 não é tocada
+        assertEquals(0, report.getInserted());
+        assertEquals(0, report.getDeleted());
+        assertEquals("Reunião", jdbcTemplate.queryForObject(
+            "SELECT blocking_reason FROM time_slot WHERE batch_row = 1 AND batch_position = 2", String.class));
+        assertEquals(1, count("SELECT SUM(blocked_slots) FROM occupancy_summary"));
+        assertEquals(3, count("SELECT SUM(available_slots) FROM occupancy_summary"));
+    }
+
+    private void addBatchConfig(int weekday, int totalSlots, int parallelCapacity, String start, String end) {
+        jdbcTemplate.update(
+            "INSERT INTO slot_batch_config VALUES (1, ?, ?, ?, 30, ?, ?)",
+            weekday, totalSlots, parallelCapacity, start, end);
+    }
+
+    private int count(String sql, Object... args) {
+        Integer value = jdbcTemplate.queryForObject(sql, Integer.class, args);
+        return value != null ? value : 0;
+    }
+}
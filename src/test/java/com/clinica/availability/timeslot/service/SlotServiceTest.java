@@ -0,0 +1,344 @@
+package com.clinica.availability.timeslot.service;
+
+import com.clinica.availability.event.AvailabilityChangePublisher;
+import com.clinica.availability.repository.OccupancySummaryRepository;
+import com.clinica.availability.timeslot.repository.HistoricalSlotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class SlotServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private HistoricalSlotRepository historicalSlotRepository;
+    private SlotService slotService;
+
+    @BeforeEach
+    void setUp() {
+        // H2 em modo MySQL com as tabelas usadas pela reserva
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate.execute(
+            "CREATE TABLE time_slot (id BIGINT AUTO_INCREMENT PRIMARY KEY, resource_type VARCHAR(32), " +
+            "resource_id BIGINT, tenant_id BIGINT, start_time TIMESTAMP, end_time TIMESTAMP, status VARCHAR(16), " +
+            "booking_id BIGINT, capacity INT, booked_count INT DEFAULT 0 NOT NULL, " +
+            "last_modified_by VARCHAR(64), modification_reason VARCHAR(255), updated_at TIMESTAMP)");
+        jdbcTemplate.execute(
+            "CREATE TABLE slot_booking (slot_id BIGINT, slot_table VARCHAR(64), booking_id BIGINT, created_at TIMESTAMP)");
+        jdbcTemplate.execute(
+            "CREATE TABLE retroactive_change_log (slot_id BIGINT, slot_table VARCHAR(64), modified_by VARCHAR(64), " +
+            "from_status VARCHAR(16), to_status VARCHAR(16), reason VARCHAR(255), resource_type VARCHAR(32), " +
+            "resource_id BIGINT, tenant_id BIGINT, slot_date DATE)");
+
+        historicalSlotRepository = spy(new HistoricalSlotRepository());
+        ReflectionTestUtils.setField(historicalSlotRepository, "jdbcTemplate", jdbcTemplate);
+
+        slotService = new SlotService();
+        ReflectionTestUtils.setField(slotService, "historicalSlotRepository", historicalSlotRepository);
+        ReflectionTestUtils.setField(slotService, "occupancySummaryRepository", mock(OccupancySummaryRepository.class));
+        ReflectionTestUtils.setField(slotService, "redisTemplate", mock(RedisTemplate.class));
+        ReflectionTestUtils.setField(slotService, "changePublisher", mock(AvailabilityChangePublisher.class));
+        ReflectionTestUtils.setField(slotService, "holdStoreType", SlotHoldStore.Type.MEMORY);
+        ReflectionTestUtils.setField(slotService, "holdTtlSeconds", 90L);
+        ReflectionTestUtils.setField(slotService, "maxHoldTtlSeconds", 600L);
+        slotService.initHoldStore();
+    }
+
+    @Test
+    void testBookSlot_capacityStaysAvailableUntilFull() {
+        long slotId = insertSlot(2);
+
+        assertTrue(slotService.bookSlot(slotId, 10L, "recepcao", null));
+        assertEquals("AVAILABLE", status(slotId));
+        assertEquals(1, bookedCount(slotId));
+        assertTrue(slotService.bookSlot(slotId, 11L, "recepcao", null));
+        assertEquals("BOOKED", status(slotId));
+        assertFalse(slotService.bookSlot(slotId, 12L, "recepcao", null));
+
+        // Vínculos e auditoria com o status real de cada reserva
+        assertEquals(List.of(10L, 11L), jdbcTemplate.queryForList(
+            "SELECT booking_id FROM slot_booking WHERE slot_id = ? ORDER BY booking_id", Long.class, slotId));
+        assertEquals(List.of("AVAILABLE", "BOOKED"), jdbcTemplate.queryForList(
+            "SELECT to_status FROM retroactive_change_log WHERE from_status = 'AVAILABLE'", String.class));
+        assertNull(jdbcTemplate.queryForObject("SELECT booking_id FROM time_slot WHERE id = ?", Long.class, slotId));
+    }
+
+    @Test
+    void testCancelBooking_releasesCapacitySeat() {
+        long slotId = insertSlot(2);
+        slotService.bookSlot(slotId, 10L, "recepcao", null);
+        slotService.bookSlot(slotId, 11L, "recepcao", null);
+
+        assertTrue(slotService.cancelBooking(slotId, 10L, "recepcao", "desistência"));
+
+        assertEquals("AVAILABLE", status(slotId));
+        assertEquals(1, bookedCount(slotId));
+        assertEquals(List.of(11L), jdbcTemplate.queryForList(
+            "SELECT booking_id FROM slot_booking WHERE slot_id = ?", Long.class, slotId));
+        assertEquals(1, count("SELECT COUNT(*) FROM retroactive_change_log " +
+            "WHERE from_status = 'BOOKED' AND to_status = 'AVAILABLE'"));
+
+        // O agendamento já foi cancelado; outro agendamento volta a caber na vaga
+        assertFalse(slotService.cancelBooking(slotId, 10L, "recepcao", null));
+        assertEquals(1, bookedCount(slotId));
+        assertTrue(slotService.bookSlot(slotId, 12L, "recepcao", null));
+        assertEquals("BOOKED", status(slotId));
+    }
+
+    @Test
+    void testCancelBooking_keepsLinkWhenNoSeatToRelease() {
+        long slotId = insertSlot(2);
+        slotService.bookSlot(slotId, 10L, "recepcao", null);
+        jdbcTemplate.update("UPDATE time_slot SET booked_count = 0 WHERE id = ?", slotId); // Contador divergente
+
+        assertThrows(IllegalStateException.class,
+            () -> inTransaction(() -> slotService.cancelBooking(slotId, 10L, "recepcao", null)));
+
+        // A remoção do vínculo é desfeita junto com a transação
+        assertEquals(List.of(10L), jdbcTemplate.queryForList(
+            "SELECT booking_id FROM slot_booking WHERE slot_id = ?", Long.class, slotId));
+        assertEquals(0, bookedCount(slotId));
+    }
+
+    @Test
+    void testCancelBooking_plainSlotOnlyForItsBooking() {
+        long slotId = insertSlot(null);
+        slotService.bookSlot(slotId, 10L, "recepcao", null);
+
+        assertFalse(slotService.cancelBooking(slotId, 99L, "recepcao", null));
+        assertEquals("BOOKED", status(slotId));
+
+        assertTrue(slotService.cancelBooking(slotId, 10L, "recepcao", null));
+        assertEquals("AVAILABLE", status(slotId));
+        assertNull(jdbcTemplate.queryForObject("SELECT booking_id FROM time_slot WHERE id = ?", Long.class, slotId));
+        assertEquals(0, count("SELECT COUNT(*) FROM slot_booking"));
+    }
+
+    @Test
+    void testBookSlot_loserOnlyRunsTheUpdate() {
+        long slotId = insertSlot(null);
+
+        assertTrue(slotService.bookSlot(slotId, 10L, "recepcao", null));
+        assertFalse(slotService.bookSlot(slotId, 11L, "recepcao", null));
+        assertFalse(slotService.bookSlot(slotId + 100, 12L, "recepcao", null)); // Slot inexistente
+
+        // Só o vencedor lê a linha; perdedores não procuram o slot nem consultam o arquivo
+        verify(historicalSlotRepository, times(1)).findSlotForBooking(anyString(), anyLong());
+        verify(historicalSlotRepository, never()).determineSlotTableName(anyLong());
+        verify(historicalSlotRepository, never()).findSlotById(anyLong());
+        assertEquals(10L, jdbcTemplate.queryForObject("SELECT booking_id FROM time_slot WHERE id = ?", Long.class, slotId));
+        assertEquals(1, count("SELECT COUNT(*) FROM retroactive_change_log"));
+    }
+
+    @Test
+    void testBookSlot_concurrentRequestsHaveOneWinner() throws Exception {
+        long slotId = insertSlot(null);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            long bookingId = 100 + i;
+            results.add(executor.submit(() -> {
+                start.await();
+                return slotService.bookSlot(slotId, bookingId, "recepcao", null);
+            }));
+        }
+
+        start.countDown();
+        int winners = 0;
+        for (Future<Boolean> result : results) {
+            winners += result.get(10, TimeUnit.SECONDS) ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertEquals(1, winners);
+        assertEquals("BOOKED", status(slotId));
+        assertEquals(1, count("SELECT COUNT(*) FROM retroactive_change_log"));
+    }
+
+    @Test
+    void testBookSlots_allSlotsWithRealStatus() {
+        long first = insertSlot(null);
+        long second = insertSlot(null);
+        long shared = insertSlot(2);
+
+        inTransaction(() -> slotService.bookSlots(List.of(first, second, shared, first), 20L, "recepcao", null));
+
+        assertEquals("BOOKED", status(first));
+        assertEquals("BOOKED", status(second));
+        assertEquals("AVAILABLE", status(shared)); // Ainda tem uma vaga
+        assertEquals(List.of(20L), jdbcTemplate.queryForList(
+            "SELECT booking_id FROM slot_booking WHERE slot_id = ?", Long.class, shared));
+        assertEquals(2, count("SELECT COUNT(*) FROM retroactive_change_log WHERE to_status = 'BOOKED'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM retroactive_change_log WHERE to_status = 'AVAILABLE'"));
+    }
+
+    @Test
+    void testBookSlots_rollsBackWhenOneSlotIsTaken() {
+        long first = insertSlot(null);
+        long taken = insertSlot(null);
+        slotService.bookSlot(taken, 10L, "recepcao", null);
+
+        assertThrows(IllegalStateException.class,
+            () -> inTransaction(() -> slotService.bookSlots(List.of(first, taken), 20L, "recepcao", null)));
+
+        assertEquals("AVAILABLE", status(first));
+        assertEquals(10L, jdbcTemplate.queryForObject("SELECT booking_id FROM time_slot WHERE id = ?", Long.class, taken));
+        assertEquals(1, count("SELECT COUNT(*) FROM retroactive_change_log")); // Só a reserva anterior
+    }
+
+    @Test
+    void testBookSlots_rejectsInvalidIds() {
+        assertThrows(IllegalArgumentException.class, () -> slotService.bookSlots(List.of(), 20L, "recepcao", null));
+        assertThrows(IllegalArgumentException.class,
+            () -> slotService.bookSlots(Arrays.asList(1L, null), 20L, "recepcao", null));
+        List<Long> tooMany = LongStream.rangeClosed(1, 1001).boxed().collect(Collectors.toList());
+        assertThrows(IllegalArgumentException.class, () -> slotService.bookSlots(tooMany, 20L, "recepcao", null));
+        verify(historicalSlotRepository, never()).bookSlots(anyList(), anyLong(), any(), anyString());
+    }
+
+    @Test
+    void testHoldSlot_onlyForAvailableSlots() {
+        long slotId = insertSlot(null);
+        long booked = insertSlot(null);
+        slotService.bookSlot(booked, 10L, "recepcao", null);
+
+        assertNull(slotService.holdSlot(booked, null));
+        assertNull(slotService.holdSlot(slotId + 100, null)); // Slot inexistente
+        assertNotNull(slotService.holdSlot(slotId, 30L));
+        assertNull(slotService.holdSlot(slotId, 30L));        // Já seguro por outro token
+    }
+
+    @Test
+    void testHoldSlot_rejectsInvalidTtl() {
+        long slotId = insertSlot(null);
+
+        assertThrows(IllegalArgumentException.class, () -> slotService.holdSlot(slotId, 0L));
+        assertThrows(IllegalArgumentException.class, () -> slotService.holdSlot(slotId, -1L));
+        assertThrows(IllegalArgumentException.class, () -> slotService.holdSlot(slotId, 601L));
+    }
+
+    @Test
+    void testConfirmHold_onlyWithItsToken() {
+        long slotId = insertSlot(null);
+        String token = slotService.holdSlot(slotId, null);
+
+        assertFalse(slotService.confirmHold(slotId, "outro", 10L, "recepcao", null));
+        assertEquals("AVAILABLE", status(slotId));
+
+        assertTrue(slotService.confirmHold(slotId, token, 10L, "recepcao", null));
+        assertEquals("BOOKED", status(slotId));
+        assertFalse(slotService.confirmHold(slotId, token, 11L, "recepcao", null)); // Hold já consumido
+    }
+
+    @Test
+    void testBookSlot_rejectsSlotHeldByAnotherToken() {
+        long slotId = insertSlot(null);
+        long other = insertSlot(null);
+        String token = slotService.holdSlot(slotId, null);
+
+        // Listagem desatualizada ou outra aba: a reserva direta não passa pelo hold
+        assertFalse(slotService.bookSlot(slotId, 10L, "recepcao", null));
+        assertThrows(IllegalStateException.class,
+            () -> inTransaction(() -> slotService.bookSlots(List.of(other, slotId), 10L, "recepcao", null)));
+        assertEquals("AVAILABLE", status(other));
+
+        assertTrue(slotService.confirmHold(slotId, token, 11L, "recepcao", null));
+        assertEquals(11L, jdbcTemplate.queryForObject("SELECT booking_id FROM time_slot WHERE id = ?", Long.class, slotId));
+        assertEquals(1, count("SELECT COUNT(*) FROM retroactive_change_log"));
+    }
+
+    @Test
+    void testConfirmHold_keepsHoldWhenBookingFails() {
+        long slotId = insertSlot(null);
+        String token = slotService.holdSlot(slotId, null);
+
+        // Slot ocupado por fora (outro nó, arquivamento): o UPDATE não reserva e o hold continua
+        jdbcTemplate.update("UPDATE time_slot SET status = 'BLOCKED' WHERE id = ?", slotId);
+        assertFalse(slotService.confirmHold(slotId, token, 10L, "recepcao", null));
+        assertTrue(slotService.releaseHold(slotId, token));
+    }
+
+    @Test
+    void testConfirmHold_releasesHoldOnlyAfterCommit() {
+        long slotId = insertSlot(null);
+        String token = slotService.holdSlot(slotId, null);
+        OccupancySummaryRepository summaries = mock(OccupancySummaryRepository.class);
+        doThrow(new IllegalStateException("falha no sumário")).when(summaries)
+            .markSummaryForRecalculation(any(), any(), any(), anyInt(), anyInt());
+        ReflectionTestUtils.setField(slotService, "occupancySummaryRepository", summaries);
+
+        // Transação desfeita depois do UPDATE: slot livre e hold ainda do paciente
+        assertThrows(IllegalStateException.class,
+            () -> inTransaction(() -> slotService.confirmHold(slotId, token, 10L, "recepcao", null)));
+        assertEquals("AVAILABLE", status(slotId));
+        assertNull(slotService.holdSlot(slotId, null));
+
+        ReflectionTestUtils.setField(slotService, "occupancySummaryRepository", mock(OccupancySummaryRepository.class));
+        inTransaction(() -> assertTrue(slotService.confirmHold(slotId, token, 10L, "recepcao", null)));
+        assertEquals("BOOKED", status(slotId));
+        assertFalse(slotService.releaseHold(slotId, token)); // Liberado no commit
+    }
+
+    /**
+     * Executa como o proxy de @Transactional: exceções desfazem tudo o que foi gravado
+     */
+    private void inTransaction(Runnable action) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> action.run());
+    }
+
+    private long insertSlot(Integer capacity) {
+        jdbcTemplate.update(
+            "INSERT INTO time_slot (resource_type, resource_id, tenant_id, start_time, end_time, status, capacity) " +
+            "VALUES ('DOCTOR', 7, NULL, TIMESTAMP '2024-03-04 09:00:00', TIMESTAMP '2024-03-04 09:30:00', " +
+            "'AVAILABLE', ?)", capacity);
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM time_slot", Long.class);
+    }
+
+    private String status(long slotId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM time_slot WHERE id = ?", String.class, slotId);
+    }
+
+    private int bookedCount(long slotId) {
+        return count("SELECT booked_count FROM time_slot WHERE id = ?", slotId);
+    }
+
+    private int count(String sql, Object... args) {
+        Integer value = jdbcTemplate.queryForObject(sql, Integer.class, args);
+        return value != null ? value : 0;
+    }
+}